@@ -0,0 +1,144 @@
+package com.example.demo;
+
+import com.example.demo.model.Bug;
+import com.example.demo.model.Bug.BugPriority;
+import com.example.demo.model.Bug.BugStatus;
+import com.example.demo.model.BugLog;
+import com.example.demo.model.Project;
+import com.example.demo.model.Task;
+import com.example.demo.model.Task.TaskPriority;
+import com.example.demo.model.Task.TaskStatus;
+import com.example.demo.model.User;
+import com.example.demo.repository.BugSummary;
+import com.example.demo.repository.BugSummary.ProjectRef;
+import com.example.demo.repository.BugSummary.UserRef;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * In-memory objects shaped like the ones the endpoints return, built from a fixed seed so that
+ * every run measures the same data.
+ */
+public final class Fixtures {
+
+    // Default page size of the bug filter endpoint
+    public static final int PAGE = 50;
+
+    private static final long SEED = 42;
+    private static final Date NOW = new Date(1_700_000_000_000L);
+
+    private Fixtures() {
+    }
+
+    public static Random random() {
+        return new Random(SEED);
+    }
+
+    public static User user(long id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(role.toLowerCase() + id);
+        user.setEmail(role.toLowerCase() + id + "@example.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoO5bK2kMzvS8V2pZQe1x0h3bL6Y5h1H6u");
+        user.setRole(role);
+        return user;
+    }
+
+    // A project with 5 developers and 5 testers, as in the seeded test database
+    public static Project project(long id) {
+        Project project = new Project();
+        project.setId(id);
+        project.setName("Project " + id);
+        project.setDescription("Description of project " + id);
+        project.setCreatedBy(user(1, "ADMIN"));
+        for (int i = 0; i < 5; i++) {
+            project.getDevelopers().add(user(100 + id * 10 + i, "DEVELOPER"));
+            project.getTesters().add(user(200 + id * 10 + i, "TESTER"));
+        }
+        return project;
+    }
+
+    public static Bug bug(long id, Random random) {
+        Project project = project(1 + id % 20);
+        User tester = project.getTesters().iterator().next();
+        User developer = project.getDevelopers().iterator().next();
+        Bug bug = new Bug();
+        bug.setId(id);
+        bug.setTitle("Bug " + id);
+        bug.setDescription("Steps to reproduce bug " + id + ": open the page, press the button, watch it fail.");
+        bug.setPriority(BugPriority.values()[random.nextInt(BugPriority.values().length)]);
+        bug.setStatus(BugStatus.values()[random.nextInt(BugStatus.values().length)]);
+        bug.setProject(project);
+        bug.setCreatedBy(tester);
+        bug.setAssignedTo(developer);
+        bug.setCreatedAt(NOW);
+        bug.setLastStatusChange(NOW);
+        bug.setWasBreached(random.nextInt(10) == 0);
+        for (int i = 0; i < 3; i++) {
+            BugLog log = log(id * 3 + i, i % 2 == 0 ? tester : developer, random);
+            log.setBug(bug);
+            bug.getLogs().add(log);
+        }
+        return bug;
+    }
+
+    public static BugLog log(long id, User user, Random random) {
+        BugLog log = new BugLog();
+        log.setId(id);
+        log.setUser(user);
+        log.setStatus(BugStatus.values()[random.nextInt(BugStatus.values().length)].name());
+        log.setText("Log entry " + id);
+        log.setImageId(random.nextBoolean() ? id : null);
+        log.setTimestamp(NOW);
+        return log;
+    }
+
+    public static Task task(long id, Random random) {
+        Project project = project(1 + id % 20);
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle("Task " + id);
+        task.setDescription("Check the fix for bug " + id + " on the staging build.");
+        task.setPriority(TaskPriority.values()[random.nextInt(TaskPriority.values().length)]);
+        task.setStatus(TaskStatus.ASSIGNED);
+        task.setProject(project);
+        task.setCreatedBy(project.getDevelopers().iterator().next());
+        task.setAssignedTo(project.getTesters().iterator().next());
+        task.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        task.setAssignedAt(LocalDateTime.of(2024, 1, 2, 12, 0));
+        return task;
+    }
+
+    public static BugSummary summary(long id, Random random) {
+        return new BugSummary(id, "Bug " + id, "Steps to reproduce bug " + id,
+                random.nextInt(5) == 0 ? null : BugPriority.values()[random.nextInt(BugPriority.values().length)],
+                BugStatus.values()[random.nextInt(BugStatus.values().length)], null, NOW, NOW,
+                random.nextInt(10) == 0, random.nextBoolean(),
+                new ProjectRef(1 + id % 20, "Project " + (1 + id % 20)),
+                new UserRef(200 + id % 50, "tester" + (200 + id % 50)),
+                new UserRef(100 + id % 50, "developer" + (100 + id % 50)));
+    }
+
+    public static List<BugSummary> summaries(int count) {
+        Random random = random();
+        List<BugSummary> summaries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            summaries.add(summary(count - i, random));
+        }
+        return summaries;
+    }
+
+    public static List<BugLog> logs(int count) {
+        Random random = random();
+        User tester = user(200, "TESTER");
+        List<BugLog> logs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            logs.add(log(count - i, tester, random));
+        }
+        return logs;
+    }
+}
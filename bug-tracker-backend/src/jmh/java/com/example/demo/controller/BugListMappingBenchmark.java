@@ -0,0 +1,41 @@
+package com.example.demo.controller;
+
+import com.example.demo.Fixtures;
+import com.example.demo.controller.BugController.BugListItem;
+import com.example.demo.model.BugLog;
+import com.example.demo.repository.BugSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Turning one page of query results into response objects, as getAllBugs and getBugLogs do
+ * before Jackson sees them.
+ */
+@State(Scope.Benchmark)
+public class BugListMappingBenchmark {
+
+    private List<BugSummary> bugs;
+    private List<BugLog> logs;
+
+    @Setup
+    public void setUp() {
+        bugs = Fixtures.summaries(Fixtures.PAGE);
+        logs = Fixtures.logs(Fixtures.PAGE);
+    }
+
+    @Benchmark
+    public List<BugListItem> bugListItems() {
+        return bugs.stream().map(BugController::listItem).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> bugLogEntries() {
+        return logs.stream().map(BugController::logEntry).collect(Collectors.toList());
+    }
+}
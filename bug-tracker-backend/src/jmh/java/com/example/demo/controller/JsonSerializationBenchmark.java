@@ -0,0 +1,60 @@
+package com.example.demo.controller;
+
+import com.example.demo.Fixtures;
+import com.example.demo.controller.BugController.BugListItem;
+import com.example.demo.model.Bug;
+import com.example.demo.model.Task;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writing response bodies: a single bug (with its logs), a page of tasks and a page of the bug
+ * list, to bytes as the message converter does.
+ */
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private ObjectWriter writer;
+    private Bug bug;
+    private List<Task> tasks;
+    private List<BugListItem> bugList;
+
+    @Setup
+    public void setUp() {
+        // Same defaults as the ObjectMapper Spring Boot configures for the message converters
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = mapper.writer();
+        Random random = Fixtures.random();
+        bug = Fixtures.bug(1, random);
+        tasks = new ArrayList<>();
+        for (int i = 0; i < Fixtures.PAGE; i++) {
+            tasks.add(Fixtures.task(Fixtures.PAGE - i, random));
+        }
+        bugList = Fixtures.summaries(Fixtures.PAGE).stream().map(BugController::listItem).toList();
+    }
+
+    @Benchmark
+    public byte[] bug() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bug);
+    }
+
+    @Benchmark
+    public byte[] taskPage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] bugListPage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bugList);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.model;
+
+import com.example.demo.Fixtures;
+import com.example.demo.model.Bug.BugPriority;
+import com.example.demo.repository.BugSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Priority handling. The filter endpoint orders by the stored priority rank in SQL, so what is
+ * left in the JVM is parsing the request parameter; sorting a page by rank is kept as the
+ * reference point for the in-memory ordering that replaced.
+ */
+@State(Scope.Benchmark)
+public class BugPriorityBenchmark {
+
+    private static final Comparator<BugSummary> BY_RANK = Comparator
+            .comparingInt((BugSummary bug) -> bug.priority() != null ? bug.priority().rank() : BugPriority.UNRANKED)
+            .thenComparing(BugSummary::id);
+
+    // Request values as clients send them, including ones that match no priority
+    private final String[] values = {"HIGH", "medium", " Low ", "urgent", "MEDIUM", "high", ""};
+    private int next;
+    private List<BugSummary> page;
+
+    @Setup
+    public void setUp() {
+        page = Fixtures.summaries(Fixtures.PAGE);
+    }
+
+    @Benchmark
+    public BugPriority parse() {
+        String value = values[next];
+        next = next + 1 == values.length ? 0 : next + 1;
+        return BugPriority.parse(value);
+    }
+
+    @Benchmark
+    public List<BugSummary> sortPageByRank() {
+        List<BugSummary> sorted = new ArrayList<>(page);
+        sorted.sort(BY_RANK);
+        return sorted;
+    }
+}
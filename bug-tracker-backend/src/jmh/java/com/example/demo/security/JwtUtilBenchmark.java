@@ -0,0 +1,51 @@
+package com.example.demo.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Signing and verifying access tokens, which happens on every login and every authenticated
+ * request respectively.
+ */
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    // 512-bit key, as HS512 needs; any fixed value gives comparable runs
+    private static final String SECRET =
+            "CKd73QukLnLrs6CQxmubXArfgK8HDAbPpg99jKksIPJMms/Ez4ECrBp8cNLNEeB8DR7bE3dGEFUoM0mOcQcm8g==";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        // Far enough ahead that the token does not expire during a run
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 24 * 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 24 * 3_600_000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken("developer101", "DEVELOPER", "0b7e2d4c-3f8a-4a51-9c1e-2d6f0a9b8c7d");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("developer101", "DEVELOPER", "0b7e2d4c-3f8a-4a51-9c1e-2d6f0a9b8c7d");
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    // What JwtFilter does per request: verify signature and expiry, then read the claims
+    @Benchmark
+    public Claims parse() {
+        return jwtUtil.parse(token);
+    }
+}
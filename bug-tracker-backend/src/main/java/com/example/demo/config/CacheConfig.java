@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Caffeine caches in front of the image endpoints, JWT checks and user lookups. All of them record stats, which Spring Boot
+ * publishes as {@code cache.gets}, {@code cache.evictions} and friends under /actuator/metrics.
+ * Puts and evictions made inside a transaction only apply once it commits, so a concurrent read
+ * cannot cache the old value again in between.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Content of small attachment and rendition files, keyed by path; weighed by byte length
+    public static final String IMAGE_BYTES = "imageBytes";
+    // Attachment metadata by id; a row's content never changes, so only the sweep evicts
+    public static final String ATTACHMENTS = "attachments";
+    // Attachment id currently shown by an image endpoint, e.g. "bug:42"
+    public static final String IMAGE_IDS = "imageIds";
+    // Role by username, consulted by JwtFilter; entries expire so role changes and deletions apply
+    public static final String ACCOUNT_ROLES = "accountRoles";
+    // Users by username and by id, maintained by UserService; evicted on save, expire for other instances' writes
+    public static final String USERS = "users";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${bugtracker.image-cache.max-size:32MB}") DataSize maxSize,
+                                     @Value("${app.jwt.account-check-ttl:PT30S}") Duration accountCheckTtl,
+                                     @Value("${bugtracker.user-cache.ttl:PT5M}") Duration userTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(IMAGE_BYTES, Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Object key, Object value) -> ((byte[]) value).length)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(ATTACHMENTS, Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(IMAGE_IDS, Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(ACCOUNT_ROLES, Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(accountCheckTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(USERS, Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(userTtl)
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -1,28 +1,48 @@
 package com.example.demo.config;
 
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.demo.repository.UserRepository;
 import com.example.demo.security.JwtUtil;
+import com.example.demo.service.TokenDenylist;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.io.IOException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.util.List;
+
+/**
+ * Authenticates requests from the bearer token alone: the token is parsed once, and the
+ * principal is built from its subject and {@code role} claim. Only access tokens are accepted,
+ * and only while their login session is not on the TokenDenylist. With
+ * {@code app.jwt.account-check} on (it is off by default), the role is also compared with the
+ * account's current one through a short-lived cache, so a deleted account or changed role stops
+ * working within {@code app.jwt.account-check-ttl} instead of at the next refresh.
+ */
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService; 
+    private final UserRepository userRepository;
+    private final TokenDenylist tokenDenylist;
+    private final boolean accountCheck;
 
-    public JwtFilter(@Lazy UserDetailsService userDetailsService, JwtUtil jwtUtil) {
-        this.userDetailsService = userDetailsService;
+    public JwtFilter(JwtUtil jwtUtil, UserRepository userRepository, TokenDenylist tokenDenylist,
+                     @Value("${app.jwt.account-check:false}") boolean accountCheck) {
         this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+        this.tokenDenylist = tokenDenylist;
+        this.accountCheck = accountCheck;
     }
  
     @Override
@@ -30,25 +50,34 @@ public class JwtFilter extends OncePerRequestFilter {
             throws ServletException, IOException, java.io.IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwt = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            authenticate(authHeader.substring(7));
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            var userDetails = userDetailsService.loadUserByUsername(username);
+        filterChain.doFilter(request, response);
+    }
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                var authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+    private void authenticate(String jwt) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parse(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Bad or expired token: the request continues unauthenticated
+            return;
         }
+        String username = claims.getSubject();
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        String sessionId = claims.get(JwtUtil.SESSION_CLAIM, String.class);
+        if (username == null || role == null || sessionId == null) return;
+        if (!JwtUtil.ACCESS.equals(claims.get(JwtUtil.TYPE_CLAIM, String.class))) return;
+        if (tokenDenylist.isRevoked(sessionId)) return;
+        if (accountCheck && !role.equals(userRepository.findRoleByUsername(username))) return;
 
-        filterChain.doFilter(request, response);
+        var userDetails = new User(username, "", List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        var authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authToken);
     }
 
     @Override
@@ -56,4 +85,4 @@ public class JwtFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
         return path.startsWith("/uploads/");
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.example.demo.config;
 
+import com.example.demo.security.BCryptCalibration;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,6 +20,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import java.time.Duration;
 import java.util.Arrays;
 
 @Configuration
@@ -35,6 +38,8 @@ public class SecurityConfig {
                 .cors(withDefaults())
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                                // Error dispatches carry the real status (e.g. 400 for a bad cursor), not a 403
+                                .requestMatchers("/error").permitAll()
                                 .requestMatchers("/uploads/**").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/uploads/**").permitAll()
                                 .requestMatchers("/api/bugs/*/image").permitAll()
@@ -64,6 +69,8 @@ public class SecurityConfig {
                                 .requestMatchers("/api/auth/users/**").hasRole("ADMIN")
                                 // Projects
                                 .requestMatchers("/api/projects/**").authenticated()
+                                // Metrics (cache hit/miss/eviction counters etc.)
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -72,9 +79,12 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Work factor from bugtracker.password.strength, or calibrated to target-time when that is unset (0)
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(@Value("${bugtracker.password.strength:0}") int strength,
+                                    @Value("${bugtracker.password.target-time:PT0.25S}") Duration targetTime,
+                                    @Value("${bugtracker.password.min-strength:10}") int minStrength) {
+        return new BCryptPasswordEncoder(strength > 0 ? strength : BCryptCalibration.strengthFor(targetTime, minStrength));
     }
 
     @Bean
@@ -83,6 +93,8 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("https://bug-tracker-system.onrender.com"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Paging metadata travels in headers so list bodies stay plain arrays
+        configuration.setExposedHeaders(Arrays.asList("X-Total-Count", "X-Next-Cursor"));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,15 +1,23 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.nio.file.Path;
+
 @Configuration
 public class StaticResourceConfig implements WebMvcConfigurer {
+
+    // Same directory the attachment store writes to; relative paths resolve against the working directory
+    @Value("${bugtracker.upload.dir:uploads}")
+    private String uploadDir;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Use your absolute path here, with forward slashes and a trailing slash!
+        String location = Path.of(uploadDir).toAbsolutePath().normalize().toUri().toString();
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:/C:/Users/avgav/Downloads/DBT Kit for CDAC Mumbai/DBT Kit for CDAC Mumbai/MySQL - SQL - Assignments/Bug_Tracking_App/bug-tracker-backend/uploads/");
+                .addResourceLocations(location.endsWith("/") ? location : location + "/");
     }
-} 
\ No newline at end of file
+}
@@ -2,7 +2,8 @@ package com.example.demo.controller;
 
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
-import com.example.demo.security.JwtUtil;
+import com.example.demo.repository.UserSummary;
+import com.example.demo.service.TokenService;
 import com.example.demo.service.UserService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -24,7 +25,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 	private final PasswordEncoder passwordEncoder;
     private final UserService userService;
-    private final JwtUtil jwtUtil;
+    private final TokenService tokenService;
     private final UserRepository userRepository;
     @Data
     public static class RegisterRequest {
@@ -39,9 +40,33 @@ public class AuthController {
         User user = userService.authenticate(request.getUsername(), request.getPassword());
         if (user == null) return ResponseEntity.status(401).body("Invalid credentials");
 
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole());
+        TokenService.Tokens tokens = tokenService.issue(user.getUsername(), user.getRole());
 
-        return ResponseEntity.ok(new LoginResponse(token, user.getRole(), user.getUsername()));
+        return ResponseEntity.ok(new LoginResponse(tokens.accessToken(), user.getRole(), user.getUsername(),
+                tokens.refreshToken()));
+    }
+
+    // Trades a refresh token for a new access and refresh token; the old refresh token is used up
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        return tokenService.refresh(request.getRefreshToken())
+                .<ResponseEntity<?>>map(tokens -> ResponseEntity.ok(new LoginResponse(tokens.accessToken(),
+                        tokens.role(), tokens.username(), tokens.refreshToken())))
+                .orElseGet(() -> ResponseEntity.status(401).body("Invalid refresh token"));
+    }
+
+    // Ends the session of the bearer token, or of the refresh token in the body
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                    @RequestBody(required = false) RefreshRequest request) {
+        boolean loggedOut = authHeader != null && authHeader.startsWith("Bearer ")
+                && tokenService.logout(authHeader.substring(7));
+        // The access token may already have expired, while the refresh token is still good
+        if (!loggedOut && request != null && request.getRefreshToken() != null) {
+            loggedOut = tokenService.logout(request.getRefreshToken());
+        }
+        if (!loggedOut) return ResponseEntity.status(401).body("Invalid token");
+        return ResponseEntity.ok("Logged out");
     }
     
     @PostMapping("/register")
@@ -78,13 +103,9 @@ public class AuthController {
 
 
     @GetMapping("/users")
-    public List<User> getUsersByRole(@RequestParam(required = false) String role) {
-    	
-		if (role == null) {
-            return userRepository.findAll();
-        } else {
-            return userRepository.findByRoleIgnoreCase(role);
-        }
+    public List<UserSummary> getUsersByRole(@RequestParam(required = false) String role) {
+        // Roles are stored upper-case, so this can use the role index
+        return userRepository.findSummaries(role != null ? role.toUpperCase() : null);
     }
 
 
@@ -94,12 +115,18 @@ public class AuthController {
         private String password;
     }
 
+    @Data
+    public static class RefreshRequest {
+        private String refreshToken;
+    }
+
     @Data
     @AllArgsConstructor
     public static class LoginResponse {
         private String token;
         private String role;
         private String username;
+        private String refreshToken;
     }
     @Controller
     public class FrontendRedirectController {
@@ -1,26 +1,41 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.model.Bug;
+import com.example.demo.model.Bug.BugStatus;
 import com.example.demo.model.Project;
 import com.example.demo.model.User;
 import com.example.demo.model.BugLog;
 import com.example.demo.repository.BugRepository;
 import com.example.demo.repository.ProjectRepository;
 import com.example.demo.repository.BugLogRepository;
+import com.example.demo.repository.BugSpecifications;
+import com.example.demo.repository.BugSummary;
+import com.example.demo.service.AttachmentResponder;
+import com.example.demo.service.AttachmentService;
+import com.example.demo.service.BugTransitions;
+import com.example.demo.service.BugTransitions.Transition;
 import com.example.demo.service.UserService;
 import com.example.demo.service.MailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.beans.factory.annotation.Value;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
@@ -33,93 +48,63 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class BugController {
 
+    private static final Logger logger = LoggerFactory.getLogger(BugController.class);
+
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final BugRepository bugRepository;
     private final ProjectRepository projectRepository;
     private final UserService userService;
     private final BugLogRepository bugLogRepository;
     private final MailService mailService;
+    private final AttachmentService attachmentService;
+    private final AttachmentResponder attachmentResponder;
+    private final BugTransitions bugTransitions;
 
-    @Value("${bugtracker.upload.dir:uploads}")
-    private String uploadDir;
-
-    private String saveImage(MultipartFile file) {
-        if (file == null || file.isEmpty()) return null;
-        try {
-            Path uploadPath = Path.of(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            String filename = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            return "/" + uploadDir + "/" + filename;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to save image", e);
-        }
-    }
-
-    private boolean isBreached(Bug bug) {
-        if (bug.isWasBreached()) return true;
-        if ("RESOLVED".equalsIgnoreCase(bug.getStatus()) || "CLOSED".equalsIgnoreCase(bug.getStatus())) return false;
-        if (bug.getLastStatusChange() == null) return false;
-        long elapsedMs = new Date().getTime() - bug.getLastStatusChange().getTime();
-        long breachMs = 210 * 1000L; // 3.5 minutes for demo
-        if (elapsedMs > breachMs) {
-            bug.setWasBreached(true);
-            bugRepository.save(bug);
-            return true;
-        }
-        return false;
-    }
+    // Entry of the bug list; breaches are flagged in the background by BreachDetector
+    public record BugListItem(BugSummary bug, boolean breached) {}
 
     @GetMapping
-    public List<Map<String, Object>> getAllBugs(@RequestParam(required = false) Integer days, @RequestParam(required = false) Boolean breached) {
+    public ResponseEntity<List<BugListItem>> getAllBugs(
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) Boolean breached,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
         User user = userService.getCurrentUser();
         String role = user.getRole().toUpperCase();
-        List<Bug> bugs;
+        Specification<Bug> spec;
         if (Boolean.TRUE.equals(breached)) {
+            spec = BugSpecifications.breached(true);
             if ("DEVELOPER".equals(role)) {
-                bugs = bugRepository.findByWasBreachedTrue().stream()
-                    .filter(b -> b.getAssignedTo() != null && b.getAssignedTo().getId().equals(user.getId()))
-                    .toList();
-            } else {
-                bugs = bugRepository.findByWasBreachedTrue();
+                spec = spec.and(BugSpecifications.assignedTo(user));
             }
-            // Sort breached bugs by createdAt descending (latest first)
-            bugs = bugs.stream()
-                .sorted((b1, b2) -> {
-                    if (b1.getCreatedAt() == null && b2.getCreatedAt() == null) return 0;
-                    if (b1.getCreatedAt() == null) return 1;
-                    if (b2.getCreatedAt() == null) return -1;
-                    return b2.getCreatedAt().compareTo(b1.getCreatedAt());
-                })
-                .toList();
         } else {
-            switch (role) {
-                case "ADMIN" -> bugs = bugRepository.findBugsByProjectCreator(user);
-                case "TESTER" -> bugs = bugRepository.findByCreatedBy(user);
-                case "DEVELOPER" -> bugs = bugRepository.findByAssignedTo(user);
+            spec = switch (role) {
+                case "ADMIN" -> BugSpecifications.inProjectsOf(user);
+                case "TESTER" -> BugSpecifications.createdBy(user);
+                case "DEVELOPER" -> BugSpecifications.assignedTo(user);
                 default -> throw new RuntimeException("Unauthorized role");
-            }
+            };
             // Exclude wasBreached bugs from regular reports
-            bugs = bugs.stream().filter(b -> !b.isWasBreached()).toList();
+            spec = spec.and(BugSpecifications.breached(false));
         }
         if (days != null) {
-            Date cutoff = Date.from(Instant.now().minus(days, ChronoUnit.DAYS));
-            bugs = bugs.stream()
-                       .filter(b -> b.getCreatedAt() != null && b.getCreatedAt().after(cutoff))
-                       .collect(Collectors.toList());
-        }
-        // Add breach info to each bug
-        return bugs.stream().map(bug -> {
-            Map<String, Object> map = new java.util.HashMap<>();
-            map.put("bug", bug);
-            map.put("breached", isBreached(bug));
-            return map;
-        }).collect(Collectors.toList());
+            spec = spec.and(BugSpecifications.createdAfter(Date.from(Instant.now().minus(days, ChronoUnit.DAYS))));
+        }
+        // Latest first (ids follow creation order), one keyset page at a time
+        Window<BugSummary> bugs = bugRepository.findSummaries(spec, Cursors.position(cursor), Cursors.limit(limit));
+        return Cursors.page(bugs.stream()
+                .map(BugController::listItem)
+                .collect(Collectors.toList()), bugs);
+    }
+
+    // Add breach info to each bug
+    static BugListItem listItem(BugSummary bug) {
+        return new BugListItem(bug, bug.wasBreached());
     }
 
     @PostMapping(consumes = {"multipart/form-data"})
+    @Transactional
     public ResponseEntity<?> createBug(
             @RequestPart("bug") Bug bug,
             @RequestPart(value = "image", required = false) MultipartFile image
@@ -134,17 +119,15 @@ public class BugController {
                     .orElseThrow(() -> new RuntimeException("Project not found"));
             bug.setProject(project);
             bug.setCreatedBy(user);
-            bug.setStatus("OPEN");
+            bug.setStatus(BugStatus.OPEN);
             bug.setCreatedAt(new java.util.Date());
             bug.setLastStatusChange(new java.util.Date());
 
-            // Handle image upload
-            if (image != null && !image.isEmpty()) {
-                // Store as BLOB only
-                byte[] imageBytes = image.getBytes();
-                bug.setTesterImageBlob(imageBytes);
-                bug.setOriginalTesterImageBlob(imageBytes); // Store original image separately
-            } else {
+            // Handle image upload: stored once, referenced by the bug, its original image and the first log
+            Long imageId = attachmentService.store(image);
+            bug.setTesterImageId(imageId);
+            bug.setOriginalTesterImageId(imageId);
+            if (imageId == null) {
                 System.out.println("No image uploaded.");
             }
 
@@ -156,7 +139,7 @@ public class BugController {
             log.setUser(user);
             log.setStatus("OPEN");
             log.setText(bug.getDescription());
-            log.setImageBlob(savedBug.getTesterImageBlob());
+            log.setImageId(savedBug.getTesterImageId());
             log.setTimestamp(savedBug.getCreatedAt());
             bugLogRepository.save(log);
 
@@ -169,7 +152,7 @@ public class BugController {
                         "Priority: " + bug.getPriority() + "\n" +
                         "Created by: " + user.getUsername() + "\n" +
                         "Please assign this bug to a developer.";
-                mailService.sendMail(project.getCreatedBy().getEmail(), subject, text);
+                mailService.sendMail(project.getCreatedBy().getEmail(), subject, text, priorityName(bug));
             }
 
             return ResponseEntity.ok(savedBug);
@@ -180,14 +163,14 @@ public class BugController {
     }
 
     @PutMapping("/{bugId}/assign/{developerId}")
+    @Transactional
     public Bug assignBugToDeveloper(@PathVariable Long bugId,
                                     @PathVariable Long developerId) {
         User user = userService.getCurrentUser();
         Bug bug = bugRepository.findById(bugId)
                 .orElseThrow(() -> new RuntimeException("Bug not found"));
 
-        String status = bug.getStatus().toUpperCase();
-        if ("CLOSED".equals(status)) {
+        if (bug.getStatus() == BugStatus.CLOSED) {
             throw new RuntimeException("Cannot reassign a bug that is CLOSED.");
         }
 
@@ -196,29 +179,19 @@ public class BugController {
             throw new RuntimeException("Assigned user must be a developer.");
         }
 
-        if ("ADMIN".equalsIgnoreCase(user.getRole())) {
-            // Admin can always assign
-            bug.setAssignedTo(developer);
-            bug.setStatus("ASSIGNED");
-            bug.setLastStatusChange(new java.util.Date());
-        } else if ("DEVELOPER".equalsIgnoreCase(user.getRole())) {
+        if ("DEVELOPER".equalsIgnoreCase(user.getRole())) {
             // Developer can only reassign if they are the currently assigned developer
             if (bug.getAssignedTo() == null || !bug.getAssignedTo().getId().equals(user.getId())) {
                 throw new RuntimeException("Only the currently assigned developer can reassign this bug.");
             }
-            bug.setAssignedTo(developer);
-            bug.setStatus("ASSIGNED");
-            bug.setLastStatusChange(new java.util.Date());
-        } else {
+        } else if (!"ADMIN".equalsIgnoreCase(user.getRole())) {
+            // Admin can always assign
             throw new RuntimeException("Only admins or the currently assigned developer can assign/reassign bugs.");
         }
 
-        Bug savedBug = bugRepository.save(bug);
         // Create log for assignment
         BugLog log = new BugLog();
-        log.setBug(savedBug);
         log.setUser(user);
-        log.setStatus("ASSIGNED");
         StringBuilder logText = new StringBuilder();
         if ("ADMIN".equalsIgnoreCase(user.getRole())) {
             logText.append("Assigned to developer: ").append(developer.getUsername());
@@ -226,8 +199,7 @@ public class BugController {
             logText.append("Reassigning bug to: ").append(developer.getUsername());
         }
         log.setText(logText.toString());
-        log.setTimestamp(new java.util.Date());
-        bugLogRepository.save(log);
+        Bug savedBug = bugTransitions.apply(bug, Transition.to(BugStatus.ASSIGNED).assignedTo(developer), log);
 
         // Send email to assigned developer
         if (developer.getEmail() != null) {
@@ -239,16 +211,18 @@ public class BugController {
                     "Project: " + bug.getProject().getName() + "\n" +
                     "Created by: " + bug.getCreatedBy().getUsername() + "\n" +
                     "Please take action on this bug.";
-            mailService.sendMail(developer.getEmail(), subject, text);
+            mailService.sendMail(developer.getEmail(), subject, text, priorityName(bug));
         }
 
         return savedBug;
     }
 
     @PutMapping(value = "/{bugId}/status", consumes = {"multipart/form-data"})
+    @CacheEvict(cacheNames = CacheConfig.IMAGE_IDS, key = "'bug:' + #bugId")
+    @Transactional
     public ResponseEntity<?> updateBugStatus(
             @PathVariable Long bugId,
-            @RequestPart("status") String status,
+            @RequestPart("status") String statusName,
             @RequestPart(value = "resolution", required = false) String resolution,
             @RequestPart(value = "image", required = false) MultipartFile image
     ) {
@@ -260,44 +234,41 @@ public class BugController {
                 !bug.getAssignedTo().getId().equals(currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Unauthorized: You are not allowed to update this bug.");
         }
-        if (status == null || status.trim().isEmpty()) {
+        if (statusName == null || statusName.trim().isEmpty()) {
             return ResponseEntity.badRequest().body("Status is required.");
         }
-        bug.setStatus(status.toUpperCase());
-        bug.setLastStatusChange(new java.util.Date());
+        BugStatus status = BugStatus.parse(statusName);
+        if (status == null) {
+            return ResponseEntity.badRequest().body("Unknown status: " + statusName);
+        }
+        // Validate before touching the bug: the transaction would flush any change made so far
+        if (status == BugStatus.RESOLVED && (resolution == null || resolution.trim().isEmpty())) {
+            return ResponseEntity.badRequest().body("Resolution is required when resolving a bug.");
+        }
+        if (!bugTransitions.allows(bug.getStatus(), status)) {
+            return ResponseEntity.badRequest().body("A " + bug.getStatus() + " bug cannot be set to " + status + ".");
+        }
+        Long imageId = null;
         if (image != null && !image.isEmpty()) {
             // Handle image upload properly
             try {
                 System.out.println("[DEBUG] Status update image upload - Size: " + image.getSize() + ", Name: " + image.getOriginalFilename());
-                bug.setTesterImageBlob(image.getBytes());
+                imageId = attachmentService.store(image);
             } catch (Exception e) {
                 System.out.println("[DEBUG] Error setting status update image: " + e.getMessage());
                 e.printStackTrace();
             }
         }
-        if ("RESOLVED".equalsIgnoreCase(status)) {
-            if (resolution == null || resolution.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body("Resolution is required when resolving a bug.");
-            }
-            bug.setResolution(resolution);
+        Transition transition = Transition.to(status).testerImageId(imageId);
+        if (status == BugStatus.RESOLVED) {
+            transition = transition.resolution(resolution);
         }
-        bugRepository.save(bug);
         // Create log
         BugLog log = new BugLog();
-        log.setBug(bug);
         log.setUser(currentUser);
-        log.setStatus(status.toUpperCase());
         log.setText(resolution);
-        if (image != null && !image.isEmpty()) {
-            try {
-                log.setImageBlob(image.getBytes());
-            } catch (Exception e) {
-                System.out.println("[DEBUG] Error setting log image in status update: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
-        log.setTimestamp(new java.util.Date());
-        bugLogRepository.save(log);
+        log.setImageId(imageId);
+        bugTransitions.apply(bug, transition, log);
 
         // Send email to bug creator/admin when bug is resolved or closed
         if (bug.getCreatedBy() != null && bug.getCreatedBy().getEmail() != null) {
@@ -309,7 +280,7 @@ public class BugController {
                     cc = new String[] { adminEmail };
                 }
             }
-            if ("RESOLVED".equalsIgnoreCase(status)) {
+            if (status == BugStatus.RESOLVED) {
                 String subject = "Bug Resolved in '" + bug.getProject().getName() + "': " + bug.getTitle();
                 String resolvedText = "Your bug '" + bug.getTitle() + "' has been resolved.\n" +
                         "Description: " + bug.getDescription() + "\n" +
@@ -317,8 +288,8 @@ public class BugController {
                         "Project: " + bug.getProject().getName() + "\n" +
                         "Created by: " + bug.getCreatedBy().getUsername() + "\n" +
                         "Resolved by: " + currentUser.getUsername();
-                mailService.sendMail(bug.getCreatedBy().getEmail(), subject, resolvedText, cc, null);
-            } else if ("CLOSED".equalsIgnoreCase(status)) {
+                mailService.sendMail(bug.getCreatedBy().getEmail(), subject, resolvedText, cc, null, priorityName(bug));
+            } else if (status == BugStatus.CLOSED) {
                 String subject = "Bug Closed in '" + bug.getProject().getName() + "': " + bug.getTitle();
                 String closeText = "Your bug '" + bug.getTitle() + "' has been closed.\n" +
                         "Description: " + bug.getDescription() + "\n" +
@@ -326,7 +297,7 @@ public class BugController {
                         "Project: " + bug.getProject().getName() + "\n" +
                         "Created by: " + bug.getCreatedBy().getUsername() + "\n" +
                         "Closed by: " + currentUser.getUsername();
-                mailService.sendMail(bug.getCreatedBy().getEmail(), subject, closeText, cc, null);
+                mailService.sendMail(bug.getCreatedBy().getEmail(), subject, closeText, cc, null, priorityName(bug));
             }
         }
 
@@ -334,6 +305,7 @@ public class BugController {
     }
 
     @PostMapping(value = "/{bugId}/reopen", consumes = {"multipart/form-data"})
+    @Transactional
     public ResponseEntity<?> reopenBugByTester(
             @PathVariable Long bugId,
             @RequestPart(value = "text", required = false) String text,
@@ -347,32 +319,27 @@ public class BugController {
                 !bug.getCreatedBy().getId().equals(currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Unauthorized: Only the tester who created this bug can reopen it.");
         }
-        if (!"RESOLVED".equalsIgnoreCase(bug.getStatus())) {
+        if (bug.getStatus() != BugStatus.RESOLVED) {
             return ResponseEntity.badRequest().body("Bug is not in RESOLVED state.");
         }
-        bug.setStatus("IN_PROGRESS");
-        bug.setLastStatusChange(new java.util.Date());
-        bugRepository.save(bug);
         BugLog log = new BugLog();
-        log.setBug(bug);
         log.setUser(currentUser);
-        log.setStatus("IN_PROGRESS");
         log.setText(text);
         if (image != null && !image.isEmpty()) {
             try {
                 System.out.println("[DEBUG] Reopen image upload - Size: " + image.getSize() + ", Name: " + image.getOriginalFilename());
-                log.setImageBlob(image.getBytes());
+                log.setImageId(attachmentService.store(image));
             } catch (Exception e) {
                 System.out.println("[DEBUG] Error setting reopen image: " + e.getMessage());
                 e.printStackTrace();
             }
         }
-        log.setTimestamp(new java.util.Date());
-        bugLogRepository.save(log);
+        bugTransitions.apply(bug, Transition.to(BugStatus.IN_PROGRESS), log);
         return ResponseEntity.ok("Bug reopened and log added.");
     }
 
     @PostMapping(value = "/{bugId}/close-by-tester", consumes = {"multipart/form-data"})
+    @Transactional
     public ResponseEntity<?> closeByTester(
             @PathVariable Long bugId,
             @RequestPart(value = "text", required = false) String text,
@@ -401,30 +368,24 @@ public class BugController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Unauthorized: Only the tester who created this bug can close it.");
         }
         
-        if (!"RESOLVED".equalsIgnoreCase(bug.getStatus())) {
+        if (bug.getStatus() != BugStatus.RESOLVED) {
             System.out.println("[DEBUG] closeByTester - Bug status is not RESOLVED: " + bug.getStatus());
             return ResponseEntity.badRequest().body("Bug must be RESOLVED to close.");
         }
         
         System.out.println("[DEBUG] closeByTester - Authorization successful, proceeding with close...");
         
-        bug.setStatus("CLOSED");
-        bug.setLastStatusChange(new java.util.Date());
-        bugRepository.save(bug);
         BugLog log = new BugLog();
-        log.setBug(bug);
         log.setUser(currentUser);
-        log.setStatus("CLOSED");
         log.setText(text);
         if (image != null && !image.isEmpty()) {
             try {
-                log.setImageBlob(image.getBytes());
+                log.setImageId(attachmentService.store(image));
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
-        log.setTimestamp(new java.util.Date());
-        bugLogRepository.save(log);
+        bugTransitions.apply(bug, Transition.to(BugStatus.CLOSED), log);
 
         // Send email to bug creator/admin when bug is closed (closeByTester)
         if (bug.getCreatedBy() != null && bug.getCreatedBy().getEmail() != null) {
@@ -442,13 +403,14 @@ public class BugController {
                     "Project: " + bug.getProject().getName() + "\n" +
                     "Created by: " + bug.getCreatedBy().getUsername() + "\n" +
                     "Closed by: " + currentUser.getUsername();
-            mailService.sendMail(bug.getCreatedBy().getEmail(), subject, closeText, cc, null);
+            mailService.sendMail(bug.getCreatedBy().getEmail(), subject, closeText, cc, null, priorityName(bug));
         }
 
         return ResponseEntity.ok("Bug closed by tester.");
     }
 
     @PostMapping(value = "/{bugId}/reassign-by-tester", consumes = {"multipart/form-data"})
+    @Transactional
     public ResponseEntity<?> reassignByTester(
             @PathVariable Long bugId,
             @RequestPart("developerId") Long developerId,
@@ -477,7 +439,7 @@ public class BugController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Unauthorized: Only the tester who created this bug can reassign it.");
         }
         
-        if (!"RESOLVED".equalsIgnoreCase(bug.getStatus())) {
+        if (bug.getStatus() != BugStatus.RESOLVED) {
             System.out.println("[DEBUG] reassignByTester - Bug status is not RESOLVED: " + bug.getStatus());
             return ResponseEntity.badRequest().body("Bug must be RESOLVED to reassign.");
         }
@@ -486,27 +448,22 @@ public class BugController {
         User newDev = userService.getUserByUserId(developerId);
         System.out.println("[DEBUG] reassignByTester - New Developer: " + newDev.getUsername() + " (ID: " + newDev.getId() + ", Role: " + newDev.getRole() + ")");
         
-        if (!"DEVELOPER".equalsIgnoreCase(newDev.getRole()) || bug.getProject() == null ||
-            newDev.getAssignedAsDeveloper().stream().noneMatch(p -> p.getId().equals(bug.getProject().getId()))) {
+        boolean onProject = bug.getProject() != null &&
+            projectRepository.existsByIdAndDevelopers_Id(bug.getProject().getId(), newDev.getId());
+        if (!"DEVELOPER".equalsIgnoreCase(newDev.getRole()) || !onProject) {
             System.out.println("[DEBUG] reassignByTester - Developer validation failed:");
             System.out.println("[DEBUG] reassignByTester - Is DEVELOPER: " + "DEVELOPER".equalsIgnoreCase(newDev.getRole()));
             System.out.println("[DEBUG] reassignByTester - Bug Project is null: " + (bug.getProject() == null));
             if (bug.getProject() != null) {
-                System.out.println("[DEBUG] reassignByTester - Developer assigned to project: " + newDev.getAssignedAsDeveloper().stream().anyMatch(p -> p.getId().equals(bug.getProject().getId())));
+                logger.debug("reassignByTester - Developer assigned to project: {}", onProject);
             }
             return ResponseEntity.badRequest().body("Selected user is not a developer on this project.");
         }
         
         System.out.println("[DEBUG] reassignByTester - Authorization successful, proceeding with reassignment...");
         
-        bug.setAssignedTo(newDev);
-        bug.setStatus("ASSIGNED");
-        bug.setLastStatusChange(new java.util.Date());
-        bugRepository.save(bug);
         BugLog log = new BugLog();
-        log.setBug(bug);
         log.setUser(currentUser);
-        log.setStatus("ASSIGNED");
         StringBuilder logText = new StringBuilder();
         logText.append("Reassigning bug to: ").append(newDev.getUsername());
         if (text != null && !text.trim().isEmpty()) {
@@ -515,13 +472,12 @@ public class BugController {
         log.setText(logText.toString());
         if (image != null && !image.isEmpty()) {
             try {
-                log.setImageBlob(image.getBytes());
+                log.setImageId(attachmentService.store(image));
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
-        log.setTimestamp(new java.util.Date());
-        bugLogRepository.save(log);
+        bugTransitions.apply(bug, Transition.to(BugStatus.ASSIGNED).assignedTo(newDev), log);
 
         // Send email to reassigned developer
         if (newDev.getEmail() != null) {
@@ -532,7 +488,7 @@ public class BugController {
                     "Project: " + bug.getProject().getName() + "\n" +
                     "Created by: " + bug.getCreatedBy().getUsername() + "\n" +
                     "Reassigned by: " + currentUser.getUsername();
-            mailService.sendMail(newDev.getEmail(), subject, reassignText);
+            mailService.sendMail(newDev.getEmail(), subject, reassignText, priorityName(bug));
         }
 
         return ResponseEntity.ok("Bug reassigned by tester.");
@@ -541,82 +497,52 @@ public class BugController {
 
     
     @GetMapping("/assigned")
-    public List<Map<String, Object>> getAssignedBugsForDeveloper() {
+    public ResponseEntity<List<BugSummary>> getAssignedBugsForDeveloper(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
         User currentUser = userService.getCurrentUser();
         
         if (!"DEVELOPER".equalsIgnoreCase(currentUser.getRole())) {
             throw new RuntimeException("Only developers can access this endpoint.");
         }
 
-        List<Bug> bugs = bugRepository.findByAssignedTo(currentUser)
-            .stream().filter(b -> !b.isWasBreached()).toList();
-        
-        // Check and update breach status for each bug
-        for (Bug bug : bugs) {
-            isBreached(bug);
-        }
-        // Re-fetch bugs after possible breach updates
-        bugs = bugRepository.findByAssignedTo(currentUser)
-            .stream().filter(b -> !b.isWasBreached()).toList();
-        
-        // Return lightweight version without BLOB data
-        return bugs.stream().map(bug -> {
-            Map<String, Object> map = new java.util.HashMap<>();
-            map.put("id", bug.getId());
-            map.put("title", bug.getTitle());
-            map.put("description", bug.getDescription());
-            map.put("status", bug.getStatus());
-            map.put("priority", bug.getPriority());
-            map.put("createdAt", bug.getCreatedAt());
-            map.put("lastStatusChange", bug.getLastStatusChange());
-            map.put("resolution", bug.getResolution());
-            map.put("project", bug.getProject());
-            map.put("createdBy", bug.getCreatedBy());
-            map.put("assignedTo", bug.getAssignedTo());
-            map.put("hasImage", bug.getTesterImageBlob() != null);
-            map.put("wasBreached", bug.isWasBreached());
-            return map;
-        }).collect(Collectors.toList());
+        Window<BugSummary> page = bugRepository.findSummaries(
+                BugSpecifications.assignedTo(currentUser).and(BugSpecifications.breached(false)),
+                Cursors.position(cursor), Cursors.limit(limit));
+        return Cursors.page(page.getContent(), page);
     }
     
+    /**
+     * Filters the bugs visible to the caller, ordered by priority then id. Filtering, ordering
+     * and paging all happen in the database; the total match count is returned in X-Total-Count.
+     */
     @GetMapping("/filter")
-    public List<Bug> filterBugs(
+    public ResponseEntity<List<BugSummary>> filterBugs(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Long projectId,
             @RequestParam(required = false) String priority,
-            @AuthenticationPrincipal User user) {
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
 
-        String role = user.getRole().toUpperCase();
-        List<Bug> bugs;
-
-        switch (role) {
-            case "ADMIN":
-                bugs = bugRepository.findAll();
-                break;
-            case "TESTER":
-                bugs = bugRepository.findByCreatedBy(user);
-                break;
-            case "DEVELOPER":
-                bugs = bugRepository.findByAssignedTo(user);
-                break;
-            default:
-                throw new RuntimeException("Unauthorized role");
-        }
-
-        return bugs.stream()
-                .filter(b -> status == null || b.getStatus().equalsIgnoreCase(status))
-                .filter(b -> projectId == null || (b.getProject() != null && b.getProject().getId().equals(projectId)))
-                .filter(b -> priority == null || b.getPriority().equalsIgnoreCase(priority))
-                .sorted((b1, b2) -> {
-                    int p1 = mapPriority(b1.getPriority());
-                    int p2 = mapPriority(b2.getPriority());
-                    return p1 != p2 ? Integer.compare(p1, p2) : Long.compare(b1.getId(), b2.getId());
-                })
-                .collect(Collectors.toList());
+        User user = userService.getCurrentUser();
+        Specification<Bug> spec = BugSpecifications.visibleTo(user)
+                .and(BugSpecifications.hasStatus(status))
+                .and(BugSpecifications.inProject(projectId))
+                .and(BugSpecifications.hasPriority(priority))
+                .and(BugSpecifications.orderedByPriority());
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+
+        Page<BugSummary> bugs = bugRepository.findSummaries(spec, pageable);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(bugs.getTotalElements()))
+                .body(bugs.getContent());
     }
 
     @GetMapping("/{bugId}/logs")
-    public List<Map<String, Object>> getBugLogs(@PathVariable Long bugId) {
+    public ResponseEntity<List<Map<String, Object>>> getBugLogs(
+            @PathVariable Long bugId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
         User currentUser = userService.getCurrentUser();
         Bug bug = bugRepository.findById(bugId)
                 .orElseThrow(() -> new RuntimeException("Bug not found"));
@@ -645,30 +571,33 @@ public class BugController {
         // Admins can see all logs (no additional check needed)
         
         System.out.println("[DEBUG] getBugLogs - Authorization successful, fetching logs...");
-        List<BugLog> logs = bugLogRepository.findByBugOrderByTimestampDesc(bug);
+        Window<BugLog> logs = bugLogRepository.findByBugOrderByTimestampDescIdDesc(
+                bug, Cursors.position(cursor), Cursors.limit(limit));
         System.out.println("[DEBUG] getBugLogs - Found " + logs.size() + " logs");
         
-        return logs.stream().map(log -> {
-            Map<String, Object> map = new java.util.HashMap<>();
-            map.put("id", log.getId());
-            map.put("status", log.getStatus());
-            
-            // Handle User object to avoid Hibernate proxy serialization issues
-            User logUser = log.getUser();
-            Map<String, Object> userMap = new java.util.HashMap<>();
-            if (logUser != null) {
-                userMap.put("id", logUser.getId());
-                userMap.put("username", logUser.getUsername());
-                userMap.put("role", logUser.getRole());
-                // Add other user fields as needed
-            }
-            map.put("user", userMap);
-            
-            map.put("timestamp", log.getTimestamp());
-            map.put("text", log.getText());
-            map.put("hasImage", log.getImageBlob() != null);
-            return map;
-        }).collect(Collectors.toList());
+        return Cursors.page(logs.stream().map(BugController::logEntry).collect(Collectors.toList()), logs);
+    }
+
+    static Map<String, Object> logEntry(BugLog log) {
+        Map<String, Object> map = new java.util.HashMap<>();
+        map.put("id", log.getId());
+        map.put("status", log.getStatus());
+        
+        // Handle User object to avoid Hibernate proxy serialization issues
+        User logUser = log.getUser();
+        Map<String, Object> userMap = new java.util.HashMap<>();
+        if (logUser != null) {
+            userMap.put("id", logUser.getId());
+            userMap.put("username", logUser.getUsername());
+            userMap.put("role", logUser.getRole());
+            // Add other user fields as needed
+        }
+        map.put("user", userMap);
+        
+        map.put("timestamp", log.getTimestamp());
+        map.put("text", log.getText());
+        map.put("hasImage", log.getImageId() != null);
+        return map;
     }
 
     @PostMapping(value = "/{bugId}/log", consumes = {"multipart/form-data"})
@@ -688,15 +617,13 @@ public class BugController {
         BugLog log = new BugLog();
         log.setBug(bug);
         log.setUser(currentUser);
-        log.setStatus(bug.getStatus()); // current status
+        log.setStatus(bug.getStatus().name()); // current status
         log.setText(text);
         if (image != null && !image.isEmpty()) {
             try {
                 System.out.println("[DEBUG] Log image upload - Size: " + image.getSize() + ", Name: " + image.getOriginalFilename() + ", ContentType: " + image.getContentType());
-                byte[] imageBytes = image.getBytes();
-                System.out.println("[DEBUG] Image bytes length: " + imageBytes.length);
-                log.setImageBlob(imageBytes);
-                System.out.println("[DEBUG] Log image blob set, size: " + (log.getImageBlob() != null ? log.getImageBlob().length : "null"));
+                log.setImageId(attachmentService.store(image));
+                logger.debug("Log image attachment stored, id: {}", log.getImageId());
             } catch (Exception e) {
                 System.out.println("[DEBUG] Error setting log image blob: " + e.getMessage());
                 e.printStackTrace();
@@ -710,48 +637,25 @@ public class BugController {
     }
 
     @GetMapping("/{id}/image")
-    public ResponseEntity<byte[]> getBugImage(@PathVariable Long id) {
-        Bug bug = bugRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Bug not found"));
-        if (bug.getTesterImageBlob() == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok()
-                .header("Content-Type", "image/jpeg")
-                .body(bug.getTesterImageBlob());
+    public void getBugImage(@PathVariable Long id, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        attachmentResponder.write(bugRepository.findTesterImageIdById(id), size, false, request, response);
     }
 
     @GetMapping("/{id}/original-image")
-    public ResponseEntity<byte[]> getOriginalBugImage(@PathVariable Long id) {
-        Bug bug = bugRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Bug not found"));
-        if (bug.getOriginalTesterImageBlob() == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok()
-                .header("Content-Type", "image/jpeg")
-                .body(bug.getOriginalTesterImageBlob());
+    public void getOriginalBugImage(@PathVariable Long id, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        attachmentResponder.write(bugRepository.findOriginalTesterImageIdById(id), size, true, request, response);
     }
 
     @GetMapping("/logs/{logId}/image")
-    public ResponseEntity<byte[]> getLogImage(@PathVariable Long logId) {
-        BugLog log = bugLogRepository.findById(logId).orElse(null);
-        if (log == null || log.getImageBlob() == null) {
-            System.out.println("[DEBUG] No image blob found for logId: " + logId);
-            return ResponseEntity.notFound().build();
-        }
-        System.out.println("[DEBUG] Serving image blob size: " + log.getImageBlob().length);
-        return ResponseEntity.ok()
-                .header("Content-Type", "image/jpeg")
-                .body(log.getImageBlob());
+    public void getLogImage(@PathVariable Long logId, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        attachmentResponder.write(bugLogRepository.findImageIdById(logId), size, true, request, response);
     }
 
-    private int mapPriority(String priority) {
-        return switch (priority.toUpperCase()) {
-            case "HIGH" -> 1;
-            case "MEDIUM" -> 2;
-            case "LOW" -> 3;
-            default -> 4;
-        };
+    // Priority as MailService takes it; bugs may have none
+    private static String priorityName(Bug bug) {
+        return bug.getPriority() != null ? bug.getPriority().name() : null;
     }
 }
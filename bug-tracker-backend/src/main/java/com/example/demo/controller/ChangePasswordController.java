@@ -3,7 +3,6 @@ package com.example.demo.controller;
 import com.example.demo.model.User;
 import com.example.demo.service.UserService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -12,13 +11,12 @@ import org.springframework.web.bind.annotation.*;
 public class ChangePasswordController {
 
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
 
     @PostMapping("/change-password")
     public String changePassword(@RequestBody ChangePasswordRequest request) {
         User user = userService.getCurrentUser();
 
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
+        if (!userService.passwordMatches(user, request.getOldPassword())) {
             return "Old password is incorrect.";
         }
 
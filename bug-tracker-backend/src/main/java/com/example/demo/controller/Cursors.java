@@ -0,0 +1,110 @@
+package com.example.demo.controller;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Opaque cursor tokens for keyset pagination. A token is the URL-safe base64 form of the sort
+ * key and id of the last row on a page (e.g. {@code timestamp=T2025-01-01T10:00,id=L42}), so
+ * the next page is an index seek from that row rather than an offset scan.
+ * <p>
+ * List endpoints take optional {@code limit} and {@code cursor} parameters; the body stays a
+ * plain JSON array and the token for the following page is sent in {@value #NEXT_CURSOR_HEADER}.
+ */
+final class Cursors {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final int MAX_LIMIT = 200;
+
+    // Properties a keyset may be built from; anything else in a token is rejected
+    private static final Set<String> KEYS = Set.of("id", "timestamp");
+
+    private Cursors() {
+    }
+
+    /**
+     * Page size for a request; without {@code limit} the whole list is returned as before.
+     */
+    public static Limit limit(Integer limit) {
+        if (limit == null) return Limit.unlimited();
+        return Limit.of(Math.min(Math.max(limit, 1), MAX_LIMIT));
+    }
+
+    /**
+     * @throws ResponseStatusException 400 if the token was not produced by {@link #next(Window)}
+     */
+    public static ScrollPosition position(String cursor) {
+        if (cursor == null || cursor.isBlank()) return ScrollPosition.keyset();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String pair : decoded.split(",")) {
+                int eq = pair.indexOf('=');
+                String key = pair.substring(0, eq);
+                if (!KEYS.contains(key)) throw new IllegalArgumentException("Unknown cursor key " + key);
+                keys.put(key, decodeValue(pair.substring(eq + 1)));
+            }
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Token for the page after {@code window}, or {@code null} on the last page.
+     */
+    public static String next(Window<?> window) {
+        if (!window.hasNext() || window.isEmpty()) return null;
+        KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        StringJoiner token = new StringJoiner(",");
+        position.getKeys().forEach((key, value) -> token.add(key + "=" + encodeValue(value)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <R> ResponseEntity<List<R>> page(List<R> body, Window<?> window) {
+        String next = next(window);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(NEXT_CURSOR_HEADER, next);
+        }
+        return response.body(body);
+    }
+
+    private static String encodeValue(Object value) {
+        if (value instanceof Long l) return "L" + l;
+        // Full precision: a truncated key would skip rows that share the page's last millisecond
+        if (value instanceof Timestamp ts) return "S" + ts.toInstant();
+        if (value instanceof Date d) return "D" + d.getTime();
+        if (value instanceof LocalDateTime t) return "T" + t;
+        throw new IllegalStateException("Unsupported cursor value " + value);
+    }
+
+    private static Object decodeValue(String value) {
+        String raw = value.substring(1);
+        return switch (value.charAt(0)) {
+            case 'L' -> Long.valueOf(raw);
+            case 'S' -> Timestamp.from(Instant.parse(raw));
+            case 'D' -> new Date(Long.parseLong(raw));
+            case 'T' -> LocalDateTime.parse(raw);
+            default -> throw new IllegalArgumentException("Unsupported cursor value " + value);
+        };
+    }
+}
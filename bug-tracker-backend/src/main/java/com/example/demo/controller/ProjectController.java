@@ -10,9 +10,6 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
@@ -71,7 +68,7 @@ public class ProjectController {
             @RequestParam Long userId,
             @RequestParam String role
     ) {
-        User admin = getCurrentUser();
+        User admin = userService.getCurrentUser();
         if (!"ADMIN".equalsIgnoreCase(admin.getRole())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only admins can assign users to projects.");
         }
@@ -97,6 +94,7 @@ public class ProjectController {
         }
 
         projectRepository.save(project);
+        userService.evict(user);
         return ResponseEntity.ok("User assigned successfully");
     }
     
@@ -106,7 +104,7 @@ public class ProjectController {
             @RequestParam Long userId,
             @RequestParam String role
     ) {
-        User admin = getCurrentUser();
+        User admin = userService.getCurrentUser();
         if (!"ADMIN".equalsIgnoreCase(admin.getRole())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only admins can unassign users from projects.");
         }
@@ -126,13 +124,14 @@ public class ProjectController {
         }
 
         projectRepository.save(project);
+        userService.evict(user);
         return ResponseEntity.ok("User unassigned successfully");
     }
 
     
     @GetMapping("/assigned")
     public ResponseEntity<?> getAssignedProjects() {
-        User currentUser = getCurrentUser();
+        User currentUser = userService.getCurrentUser();
         List<Project> assignedProjects;
 
         if ("DEVELOPER".equalsIgnoreCase(currentUser.getRole())) {
@@ -145,12 +144,6 @@ public class ProjectController {
 
         return ResponseEntity.ok(assignedProjects);
     }
- 
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-    }
 
     
 }
@@ -2,16 +2,24 @@ package com.example.demo.controller;
 
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
+import com.example.demo.service.AttachmentResponder;
+import com.example.demo.service.AttachmentService;
 import com.example.demo.service.MailService;
+import com.example.demo.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,11 +40,21 @@ public class TaskController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private MailService mailService;
 
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private AttachmentResponder attachmentResponder;
+
     // Create a new task (Developer)
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Transactional
     public ResponseEntity<?> createTask(
             @RequestParam("title") String title,
             @RequestParam("description") String description,
@@ -45,10 +63,7 @@ public class TaskController {
             @RequestPart(value = "image", required = false) MultipartFile image) {
 
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User developer = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("Developer not found"));
+            User developer = userService.getCurrentUser();
 
             Project project = projectRepository.findById(projectId)
                     .orElseThrow(() -> new RuntimeException("Project not found"));
@@ -61,10 +76,10 @@ public class TaskController {
             task.setCreatedBy(developer);
             task.setStatus(Task.TaskStatus.UNASSIGNED);
 
-            if (image != null && !image.isEmpty()) {
-                task.setDeveloperImageBlob(image.getBytes());
-                task.setOriginalDeveloperImageBlob(image.getBytes());
-            }
+            // Stored once, referenced by the task, its original image and the initial log
+            Long imageId = attachmentService.store(image);
+            task.setDeveloperImageId(imageId);
+            task.setOriginalDeveloperImageId(imageId);
 
             Task savedTask = taskRepository.save(task);
 
@@ -74,9 +89,7 @@ public class TaskController {
             log.setUser(developer);
             log.setStatus(Task.TaskStatus.UNASSIGNED);
             log.setText("Task created by " + developer.getUsername());
-            if (image != null && !image.isEmpty()) {
-                log.setImageBlob(image.getBytes());
-            }
+            log.setImageId(imageId);
             taskLogRepository.save(log);
 
             // Send email to project admin
@@ -88,7 +101,7 @@ public class TaskController {
                         "Priority: " + priority + "\n" +
                         "Created by: " + developer.getUsername() + "\n" +
                         "Please assign this task to a tester.";
-                mailService.sendMail(project.getCreatedBy().getEmail(), subject, text);
+                mailService.sendMail(project.getCreatedBy().getEmail(), subject, text, priority);
             }
 
             return ResponseEntity.ok(savedTask);
@@ -101,22 +114,26 @@ public class TaskController {
 
     // Get all tasks (Admin)
     @GetMapping
-    public ResponseEntity<List<Task>> getAllTasks() {
-        List<Task> tasks = taskRepository.findAll();
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<List<TaskSummary>> getAllTasks(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        Window<TaskSummary> tasks = taskRepository.findSummaries(Cursors.position(cursor), Cursors.limit(limit));
+        return Cursors.page(tasks.getContent(), tasks);
     }
 
     // Get tasks created by developer
     @GetMapping("/created")
-    public ResponseEntity<List<Task>> getTasksCreatedByDeveloper() {
+    public ResponseEntity<List<TaskSummary>> getTasksCreatedByDeveloper(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        // Decoded up front so a bad cursor is a 400, not swallowed below
+        ScrollPosition position = Cursors.position(cursor);
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User developer = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("Developer not found"));
+            User developer = userService.getCurrentUser();
 
-            List<Task> tasks = taskRepository.findByCreatedById(developer.getId());
-            return ResponseEntity.ok(tasks);
+            Window<TaskSummary> tasks = taskRepository.findSummariesByCreatedById(
+                    developer.getId(), position, Cursors.limit(limit));
+            return Cursors.page(tasks.getContent(), tasks);
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -125,15 +142,16 @@ public class TaskController {
 
     // Get tasks assigned to tester
     @GetMapping("/assigned")
-    public ResponseEntity<List<Task>> getTasksAssignedToTester() {
+    public ResponseEntity<List<TaskSummary>> getTasksAssignedToTester(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        ScrollPosition position = Cursors.position(cursor);
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User tester = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("Tester not found"));
+            User tester = userService.getCurrentUser();
 
-            List<Task> tasks = taskRepository.findByAssignedToId(tester.getId());
-            return ResponseEntity.ok(tasks);
+            Window<TaskSummary> tasks = taskRepository.findSummariesByAssignedToId(
+                    tester.getId(), position, Cursors.limit(limit));
+            return Cursors.page(tasks.getContent(), tasks);
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -142,6 +160,7 @@ public class TaskController {
 
     // Assign task to tester (Admin)
     @PutMapping("/{taskId}/assign/{testerId}")
+    @Transactional
     public ResponseEntity<?> assignTaskToTester(@PathVariable Long taskId, @PathVariable Long testerId) {
         try {
             Task task = taskRepository.findById(taskId)
@@ -151,10 +170,12 @@ public class TaskController {
             if (!"TESTER".equalsIgnoreCase(tester.getRole())) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Assigned user must be a tester.");
             }
-            task.setAssignedTo(tester);
-            task.setStatus(Task.TaskStatus.ASSIGNED);
-            task.setAssignedAt(LocalDateTime.now());
-            taskRepository.save(task);
+            if (!task.getStatus().canMoveTo(Task.TaskStatus.ASSIGNED)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Task is already closed");
+            }
+            if (taskRepository.assign(taskId, task.getStatus(), task.getVersion(), tester, LocalDateTime.now()) == 0) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Task was changed by someone else; reload it and try again.");
+            }
 
             // Log assignment
             TaskLog log = new TaskLog();
@@ -175,34 +196,36 @@ public class TaskController {
                         "Project: " + task.getProject().getName() + "\n" +
                         "Created by: " + task.getCreatedBy().getUsername() + "\n" +
                         "Please take action on this task.";
-                mailService.sendMail(tester.getEmail(), subject, text);
+                mailService.sendMail(tester.getEmail(), subject, text, priorityName(task));
             }
 
             return ResponseEntity.ok("Task assigned to tester.");
         } catch (Exception e) {
+            // Caught exceptions do not roll back: the assignment must not commit without its log and mail
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error assigning task: " + e.getMessage());
         }
     }
 
     // Close task by tester
     @PostMapping("/{taskId}/close-by-tester")
+    @Transactional
     public ResponseEntity<?> closeTaskByTester(
             @PathVariable Long taskId,
             @RequestParam("comment") String comment,
             @RequestPart(value = "image", required = false) MultipartFile image) {
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User tester = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("Tester not found"));
+            User tester = userService.getCurrentUser();
             Task task = taskRepository.findById(taskId)
                     .orElseThrow(() -> new RuntimeException("Task not found"));
-            if (task.getStatus() == Task.TaskStatus.CLOSED) {
+            if (!task.getStatus().canMoveTo(Task.TaskStatus.CLOSED)) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Task is already closed");
             }
-            task.setStatus(Task.TaskStatus.CLOSED);
-            task.setClosedAt(LocalDateTime.now());
-            taskRepository.save(task);
+            // Before the status changes, so that a failed upload leaves the task as it was
+            Long imageId = attachmentService.store(image);
+            if (taskRepository.close(taskId, task.getStatus(), task.getVersion(), LocalDateTime.now()) == 0) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Task was changed by someone else; reload it and try again.");
+            }
 
             // Log closure
             TaskLog log = new TaskLog();
@@ -211,9 +234,7 @@ public class TaskController {
             log.setStatus(Task.TaskStatus.CLOSED);
             log.setText(comment);
             log.setTimestamp(LocalDateTime.now());
-            if (image != null && !image.isEmpty()) {
-                log.setImageBlob(image.getBytes());
-            }
+            log.setImageId(imageId);
             taskLogRepository.save(log);
 
             // Send email to creator and admin (CC)
@@ -227,23 +248,26 @@ public class TaskController {
                         "Closed by: " + tester.getUsername();
                 String to = creatorEmail != null ? creatorEmail : adminEmail;
                 String[] cc = (creatorEmail != null && adminEmail != null && !creatorEmail.equals(adminEmail)) ? new String[]{adminEmail} : null;
-                mailService.sendMail(to, subject, text, cc, null);
+                mailService.sendMail(to, subject, text, cc, null, priorityName(task));
             }
 
             return ResponseEntity.ok("Task closed by tester.");
         } catch (Exception e) {
+            // Caught exceptions do not roll back: the closure must not commit without its log and mail
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error closing task: " + e.getMessage());
         }
     }
 
     // Get task logs
     @GetMapping("/{taskId}/logs")
-    public ResponseEntity<List<Map<String, Object>>> getTaskLogs(@PathVariable Long taskId) {
+    public ResponseEntity<List<Map<String, Object>>> getTaskLogs(
+            @PathVariable Long taskId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        ScrollPosition position = Cursors.position(cursor);
         try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            String username = auth.getName();
-            User currentUser = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            User currentUser = userService.getCurrentUser();
 
             Task task = taskRepository.findById(taskId)
                     .orElseThrow(() -> new RuntimeException("Task not found"));
@@ -256,14 +280,15 @@ public class TaskController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
-            List<TaskLog> logs = taskLogRepository.findByTaskIdOrderByTimestampDesc(taskId);
+            Window<TaskLog> logs = taskLogRepository.findByTaskOrderByTimestampDescIdDesc(
+                    task, position, Cursors.limit(limit));
             List<Map<String, Object>> logMaps = logs.stream().map(log -> {
                 Map<String, Object> logMap = new HashMap<>();
                 logMap.put("id", log.getId());
                 logMap.put("status", log.getStatus());
                 logMap.put("text", log.getText());
                 logMap.put("timestamp", log.getTimestamp());
-                logMap.put("hasImage", log.getImageBlob() != null && log.getImageBlob().length > 0);
+                logMap.put("hasImage", log.getImageId() != null);
                 
                 // Create user map to avoid Hibernate proxy issues
                 Map<String, Object> userMap = new HashMap<>();
@@ -275,7 +300,7 @@ public class TaskController {
                 return logMap;
             }).collect(Collectors.toList());
 
-            return ResponseEntity.ok(logMaps);
+            return Cursors.page(logMaps, logs);
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -284,73 +309,39 @@ public class TaskController {
 
     // Get task image
     @GetMapping("/{taskId}/image")
-    public ResponseEntity<byte[]> getTaskImage(@PathVariable Long taskId) {
-        try {
-            Task task = taskRepository.findById(taskId)
-                    .orElseThrow(() -> new RuntimeException("Task not found"));
-
-            if (task.getDeveloperImageBlob() != null) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_JPEG)
-                        .body(task.getDeveloperImageBlob());
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public void getTaskImage(@PathVariable Long taskId, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        attachmentResponder.write(taskRepository.findDeveloperImageIdById(taskId), size, false, request, response);
     }
 
     // Get original task image
     @GetMapping("/{taskId}/original-image")
-    public ResponseEntity<byte[]> getOriginalTaskImage(@PathVariable Long taskId) {
-        try {
-            Task task = taskRepository.findById(taskId)
-                    .orElseThrow(() -> new RuntimeException("Task not found"));
-
-            if (task.getOriginalDeveloperImageBlob() != null) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_JPEG)
-                        .body(task.getOriginalDeveloperImageBlob());
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public void getOriginalTaskImage(@PathVariable Long taskId, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        attachmentResponder.write(taskRepository.findOriginalDeveloperImageIdById(taskId), size, true, request, response);
     }
 
     // Get log image
     @GetMapping("/logs/{logId}/image")
-    public ResponseEntity<byte[]> getLogImage(@PathVariable Long logId) {
-        try {
-            TaskLog log = taskLogRepository.findById(logId)
-                    .orElseThrow(() -> new RuntimeException("Log not found"));
-
-            if (log.getImageBlob() != null) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_JPEG)
-                        .body(log.getImageBlob());
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public void getLogImage(@PathVariable Long logId, @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        attachmentResponder.write(taskLogRepository.findImageIdById(logId), size, true, request, response);
     }
 
     // Get testers for project (for assignment dropdown)
     @GetMapping("/project/{projectId}/testers")
-    public ResponseEntity<List<User>> getProjectTesters(@PathVariable Long projectId) {
+    public ResponseEntity<List<UserSummary>> getProjectTesters(@PathVariable Long projectId) {
         try {
-            List<User> testers = userRepository.findByRole("TESTER");
+            List<UserSummary> testers = userRepository.findSummaries("TESTER");
             return ResponseEntity.ok(testers);
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-} 
\ No newline at end of file
+
+    // Priority as MailService takes it; the field is nullable
+    private static String priorityName(Task task) {
+        return task.getPriority() != null ? task.getPriority().name() : null;
+    }
+}
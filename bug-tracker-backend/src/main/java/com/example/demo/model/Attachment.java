@@ -0,0 +1,47 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.util.Date;
+
+/**
+ * An uploaded image, stored once per distinct content and referenced by id from the bug,
+ * task and log rows that use it. Owning entities only keep the id, so loading them never
+ * pulls image bytes. The bytes themselves live on disk, addressed by {@link #sha256}; see
+ * AttachmentService.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Attachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long size;
+
+    @Column(length = 64, unique = true)
+    private String sha256;
+
+    // Number of @AttachmentReference columns pointing here. Only AttachmentReferenceListener
+    // writes it (with SQL increments), so JPA never includes it in an UPDATE.
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private int refCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+    // Refreshed whenever an upload resolves to this row, so the unreferenced sweep leaves it alone
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastStoredAt;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code Long} column holding an {@link Attachment} id. Inserts, updates and deletes
+ * of the owning row adjust {@link Attachment#getRefCount()} accordingly.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AttachmentReference {
+}
@@ -1,10 +1,12 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -24,27 +26,27 @@ public class Bug {
     private String title;
     private String description;
 
-    private String priority;  
+    @Enumerated(EnumType.STRING)
+    private BugPriority priority;
 
-    private String status = "OPEN";  
-
-    private String resolution;
+    // Rank of the priority, kept in step by setPriority so that ordering by it can use an index
+    @JsonIgnore
+    @Column(nullable = false)
+    @ColumnDefault("4")
+    private int priorityRank = BugPriority.UNRANKED;
 
-    @Lob
-    private byte[] testerImageBlob;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BugStatus status = BugStatus.OPEN;
 
-    public byte[] getTesterImageBlob() { return testerImageBlob; }
-    public void setTesterImageBlob(byte[] testerImageBlob) {
-        this.testerImageBlob = testerImageBlob;
-    }
+    private String resolution;
 
-    @Lob
-    private byte[] originalTesterImageBlob;
+    // Ids of rows in the attachment table; the image bytes are never loaded with the bug.
+    @AttachmentReference
+    private Long testerImageId;
 
-    public byte[] getOriginalTesterImageBlob() { return originalTesterImageBlob; }
-    public void setOriginalTesterImageBlob(byte[] originalTesterImageBlob) {
-        this.originalTesterImageBlob = originalTesterImageBlob;
-    }
+    @AttachmentReference
+    private Long originalTesterImageId;
 
     @Column(nullable = false)
     private boolean wasBreached = false;
@@ -72,4 +74,54 @@ public class Bug {
 
     @Temporal(TemporalType.TIMESTAMP)
     private Date lastStatusChange;
+
+    // Bumped by every status transition, which only applies if the version is still the one read
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    public enum BugStatus {
+        OPEN, ASSIGNED, IN_PROGRESS, RESOLVED, CLOSED;
+
+        // The status named by value in any case, or null if there is none
+        public static BugStatus parse(String value) {
+            return valueOrNull(BugStatus.class, value);
+        }
+    }
+
+    public enum BugPriority {
+        HIGH(1), MEDIUM(2), LOW(3);
+
+        // Rank of bugs without a priority, after all others
+        public static final int UNRANKED = 4;
+
+        private final int rank;
+
+        BugPriority(int rank) {
+            this.rank = rank;
+        }
+
+        public int rank() {
+            return rank;
+        }
+
+        public static BugPriority parse(String value) {
+            return valueOrNull(BugPriority.class, value);
+        }
+    }
+
+    public void setPriority(BugPriority priority) {
+        this.priority = priority;
+        this.priorityRank = priority != null ? priority.rank() : BugPriority.UNRANKED;
+    }
+
+    private static <E extends Enum<E>> E valueOrNull(Class<E> type, String value) {
+        if (value == null) return null;
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -6,13 +6,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.util.Date;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.stream.ImageOutputStream;
 
 @Entity
 @Data
@@ -35,13 +28,8 @@ public class BugLog {
     private String status;
     private String text;
 
-    @Lob
-    private byte[] imageBlob;
-
-    public byte[] getImageBlob() { return imageBlob; }
-    public void setImageBlob(byte[] imageBlob) {
-        this.imageBlob = imageBlob;
-    }
+    @AttachmentReference
+    private Long imageId;
 
     @Temporal(TemporalType.TIMESTAMP)
     private Date timestamp;
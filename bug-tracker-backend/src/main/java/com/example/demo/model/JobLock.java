@@ -0,0 +1,35 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Lease on a background job, so that only one instance of the backend runs it at a time.
+ * See JobLockService.
+ */
+@Entity
+@Table(name = "job_lock")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // Instance currently holding the lease
+    @Column(nullable = false, length = 100)
+    private String owner;
+
+    @Column(nullable = false)
+    private Date lockedUntil;
+
+    // Fencing token; incremented every time the lease changes hands
+    @Column(nullable = false)
+    private long token;
+}
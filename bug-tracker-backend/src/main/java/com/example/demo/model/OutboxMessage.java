@@ -0,0 +1,67 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.util.Date;
+
+/**
+ * A notification email waiting to be sent. Rows are written in the same transaction as the
+ * change they announce and delivered afterwards by MailOutboxDispatcher.
+ */
+@Entity
+@Table(name = "mail_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+
+    public enum Status {
+        PENDING, SENT, DEAD
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    // Comma-separated addresses
+    @Column(length = 1000)
+    private String cc;
+
+    @Column(length = 1000)
+    private String bcc;
+
+    @Column(length = 500)
+    private String subject;
+
+    @Column(length = 10000)
+    private String body;
+
+    // May be merged with other pending messages to the same recipients into one digest
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean digest;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private Date nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private Date createdAt;
+
+    private Date sentAt;
+}
@@ -0,0 +1,31 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * A revoked refresh token or login session, by the token's {@code jti} or the session's
+ * {@code sid} claim. Rows are only needed until every token they cover has expired.
+ * See TokenDenylist.
+ */
+@Entity
+@Table(name = "revoked_token")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(nullable = false)
+    private Date expiresAt;
+
+    @Column(nullable = false)
+    private Date revokedAt;
+}
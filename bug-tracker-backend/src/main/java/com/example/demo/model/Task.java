@@ -1,6 +1,7 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
 @Entity
@@ -42,14 +43,25 @@ public class Task {
     private LocalDateTime assignedAt;
     private LocalDateTime closedAt;
 
-    @Lob
-    private byte[] developerImageBlob;
+    @AttachmentReference
+    private Long developerImageId;
 
-    @Lob
-    private byte[] originalDeveloperImageBlob;
+    @AttachmentReference
+    private Long originalDeveloperImageId;
+
+    // Bumped by every status change, which only applies if the version is still the one read
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
 
     public enum TaskStatus {
-        UNASSIGNED, ASSIGNED, CLOSED
+        UNASSIGNED, ASSIGNED, CLOSED;
+
+        // Assigning again hands the task to another tester; a closed task stays closed
+        public boolean canMoveTo(TaskStatus next) {
+            return this != CLOSED && next != UNASSIGNED;
+        }
     }
 
     public enum TaskPriority {
@@ -150,19 +162,27 @@ public class Task {
         this.closedAt = closedAt;
     }
 
-    public byte[] getDeveloperImageBlob() {
-        return developerImageBlob;
+    public Long getDeveloperImageId() {
+        return developerImageId;
+    }
+
+    public void setDeveloperImageId(Long developerImageId) {
+        this.developerImageId = developerImageId;
+    }
+
+    public Long getOriginalDeveloperImageId() {
+        return originalDeveloperImageId;
     }
 
-    public void setDeveloperImageBlob(byte[] developerImageBlob) {
-        this.developerImageBlob = developerImageBlob;
+    public void setOriginalDeveloperImageId(Long originalDeveloperImageId) {
+        this.originalDeveloperImageId = originalDeveloperImageId;
     }
 
-    public byte[] getOriginalDeveloperImageBlob() {
-        return originalDeveloperImageBlob;
+    public long getVersion() {
+        return version;
     }
 
-    public void setOriginalDeveloperImageBlob(byte[] originalDeveloperImageBlob) {
-        this.originalDeveloperImageBlob = originalDeveloperImageBlob;
+    public void setVersion(long version) {
+        this.version = version;
     }
 } 
\ No newline at end of file
@@ -28,8 +28,8 @@ public class TaskLog {
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
-    @Lob
-    private byte[] imageBlob;
+    @AttachmentReference
+    private Long imageId;
 
     // Constructors
     public TaskLog() {
@@ -85,11 +85,11 @@ public class TaskLog {
         this.timestamp = timestamp;
     }
 
-    public byte[] getImageBlob() {
-        return imageBlob;
+    public Long getImageId() {
+        return imageId;
     }
 
-    public void setImageBlob(byte[] imageBlob) {
-        this.imageBlob = imageBlob;
+    public void setImageId(Long imageId) {
+        this.imageId = imageId;
     }
 } 
\ No newline at end of file
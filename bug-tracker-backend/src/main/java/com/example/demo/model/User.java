@@ -17,6 +17,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
+// USER is reserved: PostgreSQL accepts it as a table name only schema-qualified (H2 needs NON_KEYWORDS=USER)
+@Table(schema = "public")
 public class User {
 
     @Id
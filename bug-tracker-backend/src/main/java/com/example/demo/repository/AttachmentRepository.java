@@ -0,0 +1,28 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Attachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
+
+    Optional<Attachment> findFirstBySha256OrderByIdAsc(String sha256);
+
+    boolean existsBySha256(String sha256);
+
+    // Returns 0 if the attachment no longer exists
+    @Modifying
+    @Transactional
+    @Query("UPDATE Attachment a SET a.lastStoredAt = :now WHERE a.id = :id")
+    int touch(@Param("id") Long id, @Param("now") Date now);
+
+    @Query("SELECT a FROM Attachment a WHERE a.refCount <= 0 AND COALESCE(a.lastStoredAt, a.createdAt) < :cutoff")
+    List<Attachment> findUnreferencedSince(@Param("cutoff") Date cutoff);
+}
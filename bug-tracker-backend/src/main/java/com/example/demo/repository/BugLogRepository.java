@@ -1,11 +1,24 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.model.BugLog;
 import com.example.demo.model.Bug;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface BugLogRepository extends JpaRepository<BugLog, Long> {
     List<BugLog> findByBugOrderByTimestampAsc(Bug bug);
     List<BugLog> findByBugOrderByTimestampDesc(Bug bug);
+
+    Window<BugLog> findByBugOrderByTimestampDescIdDesc(Bug bug, ScrollPosition position, Limit limit);
+
+    @Cacheable(cacheNames = CacheConfig.IMAGE_IDS, key = "'bug-log:' + #id", unless = "#result == null")
+    @Query("SELECT l.imageId FROM BugLog l WHERE l.id = :id")
+    Long findImageIdById(@Param("id") Long id);
 } 
\ No newline at end of file
@@ -1,15 +1,24 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.model.Bug;
+import com.example.demo.model.Bug.BugPriority;
+import com.example.demo.model.Bug.BugStatus;
 import com.example.demo.model.Project;
 import com.example.demo.model.User;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
-public interface BugRepository extends JpaRepository<Bug, Long> {
+public interface BugRepository extends JpaRepository<Bug, Long>, JpaSpecificationExecutor<Bug>, BugRepositoryCustom {
 
   
     List<Bug> findByCreatedBy(User user);
@@ -18,7 +27,7 @@ public interface BugRepository extends JpaRepository<Bug, Long> {
     List<Bug> findByAssignedTo(User user);
 
 
-    List<Bug> findByStatus(String status);
+    List<Bug> findByStatus(BugStatus status);
 
   
     List<Bug> findByProject(Project project);
@@ -27,10 +36,44 @@ public interface BugRepository extends JpaRepository<Bug, Long> {
     List<Bug> findBugsByProjectCreator(@Param("admin") User admin);
 
 
-    List<Bug> findByPriorityOrderByIdAsc(String priority);
+    List<Bug> findByPriorityOrderByIdAsc(BugPriority priority);
 
 
-    List<Bug> findByStatusAndProjectAndPriorityOrderByPriorityDescIdAsc(String status, Project project, String priority);
-    List<Bug> findByStatusOrderByPriorityDescIdAsc(String status);
+    List<Bug> findByStatusAndProjectAndPriorityOrderByIdAsc(BugStatus status, Project project, BugPriority priority);
+    List<Bug> findByStatusOrderByPriorityRankAscIdAsc(BugStatus status);
     List<Bug> findByWasBreachedTrue();
+
+    // Status clock of a bug that can still breach its SLA
+    interface SlaClock {
+        Long getId();
+        BugStatus getStatus();
+        BugPriority getPriority();
+        Date getLastStatusChange();
+    }
+
+    @Query("SELECT b.id AS id, b.status AS status, b.priority AS priority, b.lastStatusChange AS lastStatusChange " +
+           "FROM Bug b WHERE b.wasBreached = false AND b.lastStatusChange IS NOT NULL " +
+           "AND b.status NOT IN (RESOLVED, CLOSED)")
+    List<SlaClock> findSlaClocks();
+
+    /**
+     * Flags the given bugs as breached unless they were resolved, closed or changed status
+     * after {@code cutoff} in the meantime. Does nothing unless the lease on {@code job} still
+     * carries {@code token}, so a detector that lost its lease cannot write.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Bug b SET b.wasBreached = true WHERE b.id IN :ids AND b.wasBreached = false " +
+           "AND b.status NOT IN (RESOLVED, CLOSED) AND b.lastStatusChange <= :cutoff " +
+           "AND EXISTS (SELECT l FROM JobLock l WHERE l.name = :job AND l.token = :token)")
+    int markBreached(@Param("ids") Collection<Long> ids, @Param("cutoff") Date cutoff,
+                     @Param("job") String job, @Param("token") long token);
+
+    @Cacheable(cacheNames = CacheConfig.IMAGE_IDS, key = "'bug:' + #id", unless = "#result == null")
+    @Query("SELECT b.testerImageId FROM Bug b WHERE b.id = :id")
+    Long findTesterImageIdById(@Param("id") Long id);
+
+    @Cacheable(cacheNames = CacheConfig.IMAGE_IDS, key = "'bug-original:' + #id", unless = "#result == null")
+    @Query("SELECT b.originalTesterImageId FROM Bug b WHERE b.id = :id")
+    Long findOriginalTesterImageIdById(@Param("id") Long id);
 }
@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Bug;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * {@link BugSummary} queries driven by the same {@link BugSpecifications} as entity queries.
+ */
+public interface BugRepositoryCustom {
+
+    /**
+     * Newest first (id descending), one keyset page after {@code position}.
+     */
+    Window<BugSummary> findSummaries(Specification<Bug> spec, ScrollPosition position, Limit limit);
+
+    /**
+     * Offset page; ordering comes from the specification (e.g. {@link BugSpecifications#orderedByPriority()}).
+     */
+    Page<BugSummary> findSummaries(Specification<Bug> spec, Pageable pageable);
+}
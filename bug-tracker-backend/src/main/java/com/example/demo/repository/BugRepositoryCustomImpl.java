@@ -0,0 +1,108 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Bug;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class BugRepositoryCustomImpl implements BugRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Window<BugSummary> findSummaries(Specification<Bug> spec, ScrollPosition position, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BugSummary> query = cb.createQuery(BugSummary.class);
+        Root<Bug> bug = select(query, cb);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = spec.toPredicate(bug, query, cb);
+        if (predicate != null) predicates.add(predicate);
+        Object after = position instanceof KeysetScrollPosition keyset ? keyset.getKeys().get("id") : null;
+        if (after != null) {
+            predicates.add(cb.lessThan(bug.get("id"), (Long) after));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(cb.desc(bug.get("id")));
+
+        TypedQuery<BugSummary> typed = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            // One extra row tells whether there is a next page
+            typed.setMaxResults(limit.max() + 1);
+        }
+        List<BugSummary> rows = typed.getResultList();
+        boolean hasNext = limit.isLimited() && rows.size() > limit.max();
+        List<BugSummary> content = hasNext ? rows.subList(0, limit.max()) : rows;
+        return Window.from(content, i -> ScrollPosition.forward(Map.of("id", content.get(i).id())), hasNext);
+    }
+
+    @Override
+    public Page<BugSummary> findSummaries(Specification<Bug> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BugSummary> query = cb.createQuery(BugSummary.class);
+        Root<Bug> bug = select(query, cb);
+        Predicate predicate = spec.toPredicate(bug, query, cb);
+        if (predicate != null) query.where(predicate);
+
+        List<BugSummary> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return new PageImpl<>(content, pageable, count(spec, cb));
+    }
+
+    private static Root<Bug> select(CriteriaQuery<BugSummary> query, CriteriaBuilder cb) {
+        Root<Bug> bug = query.from(Bug.class);
+        Join<Object, Object> project = bug.join("project", JoinType.LEFT);
+        Join<Object, Object> createdBy = bug.join("createdBy", JoinType.LEFT);
+        Join<Object, Object> assignedTo = bug.join("assignedTo", JoinType.LEFT);
+        query.select(cb.construct(BugSummary.class,
+                bug.get("id"),
+                bug.get("title"),
+                bug.get("description"),
+                bug.get("priority"),
+                bug.get("status"),
+                bug.get("resolution"),
+                bug.get("createdAt"),
+                bug.get("lastStatusChange"),
+                bug.get("wasBreached"),
+                cb.<Boolean>selectCase().when(cb.isNotNull(bug.get("testerImageId")), true).otherwise(false),
+                project.get("id"),
+                project.get("name"),
+                createdBy.get("id"),
+                createdBy.get("username"),
+                assignedTo.get("id"),
+                assignedTo.get("username")));
+        return bug;
+    }
+
+    private long count(Specification<Bug> spec, CriteriaBuilder cb) {
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Bug> bug = query.from(Bug.class);
+        Predicate predicate = spec.toPredicate(bug, query, cb);
+        if (predicate != null) query.where(predicate);
+        // Specifications may add ordering (priority rank); it has no place in a count
+        query.orderBy(List.of());
+        query.select(cb.count(bug));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Bug;
+import com.example.demo.model.Bug.BugPriority;
+import com.example.demo.model.Bug.BugStatus;
+import com.example.demo.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Date;
+
+/**
+ * Criteria building blocks for bug queries. Each optional filter returns {@code null} when its
+ * argument is absent, which {@link Specification#and} treats as "no restriction".
+ */
+public final class BugSpecifications {
+
+    private BugSpecifications() {
+    }
+
+    /**
+     * Bugs a user may list: admins see everything, testers the bugs they reported and
+     * developers the bugs assigned to them.
+     */
+    public static Specification<Bug> visibleTo(User user) {
+        return switch (user.getRole().toUpperCase()) {
+            case "ADMIN" -> (root, query, cb) -> cb.conjunction();
+            case "TESTER" -> createdBy(user);
+            case "DEVELOPER" -> assignedTo(user);
+            default -> throw new RuntimeException("Unauthorized role");
+        };
+    }
+
+    public static Specification<Bug> createdBy(User user) {
+        return (root, query, cb) -> cb.equal(root.get("createdBy").get("id"), user.getId());
+    }
+
+    public static Specification<Bug> assignedTo(User user) {
+        return (root, query, cb) -> cb.equal(root.get("assignedTo").get("id"), user.getId());
+    }
+
+    // Bugs in projects the admin created
+    public static Specification<Bug> inProjectsOf(User admin) {
+        return (root, query, cb) -> cb.equal(root.get("project").get("createdBy").get("id"), admin.getId());
+    }
+
+    public static Specification<Bug> breached(boolean breached) {
+        return (root, query, cb) -> cb.equal(root.get("wasBreached"), breached);
+    }
+
+    public static Specification<Bug> createdAfter(Date cutoff) {
+        return (root, query, cb) -> cb.greaterThan(root.get("createdAt"), cutoff);
+    }
+
+    public static Specification<Bug> hasStatus(String status) {
+        if (status == null) return null;
+        BugStatus value = BugStatus.parse(status);
+        return (root, query, cb) -> value != null ? cb.equal(root.get("status"), value) : cb.disjunction();
+    }
+
+    public static Specification<Bug> inProject(Long projectId) {
+        if (projectId == null) return null;
+        // Compares the project_id column directly; no join to project
+        return (root, query, cb) -> cb.equal(root.get("project").get("id"), projectId);
+    }
+
+    public static Specification<Bug> hasPriority(String priority) {
+        if (priority == null) return null;
+        BugPriority value = BugPriority.parse(priority);
+        return (root, query, cb) -> value != null ? cb.equal(root.get("priority"), value) : cb.disjunction();
+    }
+
+    /**
+     * Orders by the stored priority rank (HIGH, MEDIUM, LOW, none) and then id, in SQL. The count
+     * for paged results (BugRepositoryCustomImpl#count) clears the ordering after applying the
+     * specification.
+     */
+    public static Specification<Bug> orderedByPriority() {
+        return (root, query, cb) -> {
+            query.orderBy(cb.asc(root.get("priorityRank")), cb.asc(root.get("id")));
+            return null;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Bug.BugPriority;
+import com.example.demo.model.Bug.BugStatus;
+
+import java.util.Date;
+
+/**
+ * Read-only view of a bug for list endpoints: its own columns plus the id and name of its
+ * project and users, selected in a single query. Unlike the entity, nothing is left for Jackson
+ * to lazy-load (logs, a user's project lists, password hashes).
+ */
+public record BugSummary(
+        Long id,
+        String title,
+        String description,
+        BugPriority priority,
+        BugStatus status,
+        String resolution,
+        Date createdAt,
+        Date lastStatusChange,
+        boolean wasBreached,
+        boolean hasImage,
+        ProjectRef project,
+        UserRef createdBy,
+        UserRef assignedTo) {
+
+    public record ProjectRef(Long id, String name) {}
+
+    public record UserRef(Long id, String username) {}
+
+    // Flat form for the constructor expression; a missing (outer-joined) project or user stays null
+    public BugSummary(Long id, String title, String description, BugPriority priority, BugStatus status, String resolution,
+                      Date createdAt, Date lastStatusChange, Boolean wasBreached, Boolean hasImage,
+                      Long projectId, String projectName,
+                      Long createdById, String createdByUsername,
+                      Long assignedToId, String assignedToUsername) {
+        this(id, title, description, priority, status, resolution, createdAt, lastStatusChange,
+                Boolean.TRUE.equals(wasBreached), Boolean.TRUE.equals(hasImage),
+                projectId != null ? new ProjectRef(projectId, projectName) : null,
+                createdById != null ? new UserRef(createdById, createdByUsername) : null,
+                assignedToId != null ? new UserRef(assignedToId, assignedToUsername) : null);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    // Extends a lease this owner still holds
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLock l SET l.lockedUntil = :until WHERE l.name = :name AND l.owner = :owner AND l.lockedUntil > :now")
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("now") Date now, @Param("until") Date until);
+
+    // Takes over an expired lease, issuing a new fencing token
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLock l SET l.owner = :owner, l.lockedUntil = :until, l.token = l.token + 1 " +
+           "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int takeOver(@Param("name") String name, @Param("owner") String owner, @Param("now") Date now, @Param("until") Date until);
+
+    // First lease on a job; fails with a key violation if another instance got there first
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO job_lock (name, owner, locked_until, token) VALUES (:name, :owner, :until, 1)",
+           nativeQuery = true)
+    int create(@Param("name") String name, @Param("owner") String owner, @Param("until") Date until);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLock l SET l.lockedUntil = :now WHERE l.owner = :owner AND l.lockedUntil > :now")
+    int releaseAll(@Param("owner") String owner, @Param("now") Date now);
+}
@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.OutboxMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Date;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    List<OutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            OutboxMessage.Status status, Date now, Limit limit);
+
+    // Null cc/bcc match rows where the column is null
+    List<OutboxMessage> findByStatusAndDigestTrueAndRecipientAndCcAndBccOrderByIdAsc(
+            OutboxMessage.Status status, String recipient, String cc, String bcc);
+}
@@ -14,13 +14,21 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface ProjectRepository extends JpaRepository<Project, Long> {
-    List<Project> findByDevelopers_Id(Long developerId);
+    // Inner joins, so the database can start from the user's rows in the join table. Creators,
+    // developers and testers are batch-fetched (hibernate.default_batch_fetch_size): joining the
+    // creator here would be an outer join, and H2 does not reorder joins past one
+    @Query("SELECT p FROM Project p JOIN p.developers d WHERE d.id = :developerId")
+    List<Project> findByDevelopers_Id(@Param("developerId") Long developerId);
 
-    List<Project> findByTesters_Id(Long testerId);
+    boolean existsByIdAndDevelopers_Id(Long projectId, Long developerId);
+
+    @Query("SELECT p FROM Project p JOIN p.testers t WHERE t.id = :testerId")
+    List<Project> findByTesters_Id(@Param("testerId") Long testerId);
     
     @Query("SELECT p FROM Project p LEFT JOIN FETCH p.developers LEFT JOIN FETCH p.testers WHERE p.id = :projectId")
     Optional<Project> findByIdWithUsers(@Param("projectId") Long projectId);
     
+    @EntityGraph(attributePaths = "createdBy")
     List<Project> findByCreatedBy(User user);
 
 }
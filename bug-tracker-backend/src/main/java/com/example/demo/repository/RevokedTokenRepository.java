@@ -0,0 +1,35 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // Fails with a key violation if the id was already revoked, which is how token reuse is detected
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO revoked_token (id, expires_at, revoked_at) VALUES (:id, :expiresAt, :revokedAt)",
+           nativeQuery = true)
+    int create(@Param("id") String id, @Param("expiresAt") Date expiresAt, @Param("revokedAt") Date revokedAt);
+
+    @Query("SELECT r.id FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findActiveIds(@Param("now") Date now);
+
+    @Query("SELECT r.id FROM RevokedToken r WHERE r.revokedAt >= :since AND r.expiresAt > :now")
+    List<String> findActiveIdsRevokedSince(@Param("since") Date since, @Param("now") Date now);
+
+    boolean existsByIdInAndExpiresAtAfter(Collection<String> ids, Date now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Date now);
+}
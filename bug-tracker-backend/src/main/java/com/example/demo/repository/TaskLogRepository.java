@@ -1,7 +1,15 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.model.Task;
 import com.example.demo.model.TaskLog;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,7 +17,17 @@ import java.util.List;
 @Repository
 public interface TaskLogRepository extends JpaRepository<TaskLog, Long> {
     
-    List<TaskLog> findByTaskIdOrderByTimestampDesc(Long taskId);
+    // Compares task_id itself; derived "findByTaskId" queries outer-join tasks, which H2 can only
+    // answer by scanning every log
+    @Query("SELECT l FROM TaskLog l WHERE l.task.id = :taskId ORDER BY l.timestamp DESC")
+    List<TaskLog> findByTaskIdOrderByTimestampDesc(@Param("taskId") Long taskId);
+
+    Window<TaskLog> findByTaskOrderByTimestampDescIdDesc(Task task, ScrollPosition position, Limit limit);
     
-    List<TaskLog> findByTaskId(Long taskId);
+    @Query("SELECT l FROM TaskLog l WHERE l.task.id = :taskId")
+    List<TaskLog> findByTaskId(@Param("taskId") Long taskId);
+
+    @Cacheable(cacheNames = CacheConfig.IMAGE_IDS, key = "'task-log:' + #id", unless = "#result == null")
+    @Query("SELECT l.imageId FROM TaskLog l WHERE l.id = :id")
+    Long findImageIdById(@Param("id") Long id);
 } 
\ No newline at end of file
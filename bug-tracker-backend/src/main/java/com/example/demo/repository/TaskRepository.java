@@ -1,23 +1,33 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.model.Task;
 import com.example.demo.model.Task.TaskStatus;
+import com.example.demo.model.User;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
     
-    List<Task> findByProjectId(Long projectId);
+    // Written out so that they compare the foreign key columns: the derived equivalents outer-join
+    // the referenced table and filter on its id, which H2 can only answer with a full scan of tasks
+    @Query("SELECT t FROM Task t WHERE t.project.id = :projectId")
+    List<Task> findByProjectId(@Param("projectId") Long projectId);
     
-    List<Task> findByCreatedById(Long createdById);
-    
-    List<Task> findByAssignedToId(Long assignedToId);
+    @Query("SELECT t FROM Task t WHERE t.createdBy.id = :createdById")
+    List<Task> findByCreatedById(@Param("createdById") Long createdById);
     
+    @Query("SELECT t FROM Task t WHERE t.assignedTo.id = :assignedToId")
+    List<Task> findByAssignedToId(@Param("assignedToId") Long assignedToId);
+
     List<Task> findByStatus(TaskStatus status);
     
     List<Task> findByProjectIdAndStatus(Long projectId, TaskStatus status);
@@ -27,4 +37,28 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     
     @Query("SELECT t FROM Task t WHERE t.createdBy.id = :developerId AND t.status = :status")
     List<Task> findByCreatedByIdAndStatus(@Param("developerId") Long developerId, @Param("status") TaskStatus status);
+
+    // Status changes apply only to the status and version they were checked against; 0 means
+    // the task was changed in the meantime
+    @Modifying
+    @Query("UPDATE Task t SET t.status = com.example.demo.model.Task.TaskStatus.ASSIGNED, " +
+           "t.assignedTo = :tester, t.assignedAt = :at, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND t.status = :from AND t.version = :version")
+    int assign(@Param("id") Long id, @Param("from") TaskStatus from, @Param("version") long version,
+               @Param("tester") User tester, @Param("at") LocalDateTime at);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.status = com.example.demo.model.Task.TaskStatus.CLOSED, " +
+           "t.closedAt = :at, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND t.status = :from AND t.version = :version")
+    int close(@Param("id") Long id, @Param("from") TaskStatus from, @Param("version") long version,
+              @Param("at") LocalDateTime at);
+
+    @Cacheable(cacheNames = CacheConfig.IMAGE_IDS, key = "'task:' + #id", unless = "#result == null")
+    @Query("SELECT t.developerImageId FROM Task t WHERE t.id = :id")
+    Long findDeveloperImageIdById(@Param("id") Long id);
+
+    @Cacheable(cacheNames = CacheConfig.IMAGE_IDS, key = "'task-original:' + #id", unless = "#result == null")
+    @Query("SELECT t.originalDeveloperImageId FROM Task t WHERE t.id = :id")
+    Long findOriginalDeveloperImageIdById(@Param("id") Long id);
 } 
\ No newline at end of file
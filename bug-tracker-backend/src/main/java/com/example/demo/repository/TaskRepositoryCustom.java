@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+/**
+ * {@link TaskSummary} pages for the task lists: newest first (id descending), one keyset page
+ * after {@code position}.
+ */
+public interface TaskRepositoryCustom {
+
+    Window<TaskSummary> findSummaries(ScrollPosition position, Limit limit);
+
+    Window<TaskSummary> findSummariesByCreatedById(Long createdById, ScrollPosition position, Limit limit);
+
+    Window<TaskSummary> findSummariesByAssignedToId(Long assignedToId, ScrollPosition position, Limit limit);
+}
@@ -0,0 +1,89 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Task;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Window<TaskSummary> findSummaries(ScrollPosition position, Limit limit) {
+        return findSummaries(null, null, position, limit);
+    }
+
+    @Override
+    public Window<TaskSummary> findSummariesByCreatedById(Long createdById, ScrollPosition position, Limit limit) {
+        return findSummaries("createdBy", createdById, position, limit);
+    }
+
+    @Override
+    public Window<TaskSummary> findSummariesByAssignedToId(Long assignedToId, ScrollPosition position, Limit limit) {
+        return findSummaries("assignedTo", assignedToId, position, limit);
+    }
+
+    // userAttribute, when given, restricts the page to tasks whose user of that role has userId
+    private Window<TaskSummary> findSummaries(String userAttribute, Long userId, ScrollPosition position, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskSummary> query = cb.createQuery(TaskSummary.class);
+        Root<Task> task = query.from(Task.class);
+        Join<Object, Object> project = task.join("project", JoinType.LEFT);
+        Join<Object, Object> createdBy = task.join("createdBy", JoinType.LEFT);
+        Join<Object, Object> assignedTo = task.join("assignedTo", JoinType.LEFT);
+        query.select(cb.construct(TaskSummary.class,
+                task.get("id"),
+                task.get("title"),
+                task.get("description"),
+                task.get("status"),
+                task.get("priority"),
+                task.get("createdAt"),
+                task.get("assignedAt"),
+                task.get("closedAt"),
+                cb.<Boolean>selectCase().when(cb.isNotNull(task.get("developerImageId")), true).otherwise(false),
+                project.get("id"),
+                project.get("name"),
+                createdBy.get("id"),
+                createdBy.get("username"),
+                assignedTo.get("id"),
+                assignedTo.get("username")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (userAttribute != null) {
+            // The foreign key column of the task, not the joined user's id, so the index on it applies
+            predicates.add(cb.equal(task.get(userAttribute).get("id"), userId));
+        }
+        Object after = position instanceof KeysetScrollPosition keyset ? keyset.getKeys().get("id") : null;
+        if (after != null) {
+            predicates.add(cb.lessThan(task.get("id"), (Long) after));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(cb.desc(task.get("id")));
+
+        TypedQuery<TaskSummary> typed = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            // One extra row tells whether there is a next page
+            typed.setMaxResults(limit.max() + 1);
+        }
+        List<TaskSummary> rows = typed.getResultList();
+        boolean hasNext = limit.isLimited() && rows.size() > limit.max();
+        List<TaskSummary> content = hasNext ? rows.subList(0, limit.max()) : rows;
+        return Window.from(content, i -> ScrollPosition.forward(Map.of("id", content.get(i).id())), hasNext);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Task.TaskPriority;
+import com.example.demo.model.Task.TaskStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a task for list endpoints, selected in a single query like {@link BugSummary}:
+ * its own columns plus the id and name of its project and users.
+ */
+public record TaskSummary(
+        Long id,
+        String title,
+        String description,
+        TaskStatus status,
+        TaskPriority priority,
+        LocalDateTime createdAt,
+        LocalDateTime assignedAt,
+        LocalDateTime closedAt,
+        boolean hasImage,
+        ProjectRef project,
+        UserRef createdBy,
+        UserRef assignedTo) {
+
+    public record ProjectRef(Long id, String name) {}
+
+    public record UserRef(Long id, String username) {}
+
+    // Flat form for the constructor expression; an unassigned task has no assignedTo
+    public TaskSummary(Long id, String title, String description, TaskStatus status, TaskPriority priority,
+                       LocalDateTime createdAt, LocalDateTime assignedAt, LocalDateTime closedAt, Boolean hasImage,
+                       Long projectId, String projectName,
+                       Long createdById, String createdByUsername,
+                       Long assignedToId, String assignedToUsername) {
+        this(id, title, description, status, priority, createdAt, assignedAt, closedAt, Boolean.TRUE.equals(hasImage),
+                projectId != null ? new ProjectRef(projectId, projectName) : null,
+                createdById != null ? new UserRef(createdById, createdByUsername) : null,
+                assignedToId != null ? new UserRef(assignedToId, assignedToUsername) : null);
+    }
+}
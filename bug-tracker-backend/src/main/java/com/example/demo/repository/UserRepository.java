@@ -1,20 +1,36 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.model.User;
 
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
     List<User> findByRole(String role);
-    List<User> findByRoleIgnoreCase(String role);
     boolean existsByEmail(String email);
     Optional<User> findFirstByRoleOrderByIdAsc(String role);
 
+    // Current role of an account, for checking JWTs against; null once the account is gone
+    @Cacheable(cacheNames = CacheConfig.ACCOUNT_ROLES, unless = "#result == null")
+    @Query("SELECT u.role FROM User u WHERE u.username = :username")
+    String findRoleByUsername(@Param("username") String username);
+
+    // Replaces a password hash unless it was changed since it was read
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePassword(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
 
   
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import java.util.List;
+
+/**
+ * {@link UserSummary} lists: one query for the accounts and one per project list, so the count
+ * does not grow with the number of users.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Accounts with the given (upper-case) role, or all of them for {@code null}.
+     */
+    List<UserSummary> findSummaries(String role);
+}
@@ -0,0 +1,47 @@
+package com.example.demo.repository;
+
+import com.example.demo.repository.UserSummary.ProjectRef;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserSummary> findSummaries(String role) {
+        Map<Long, List<ProjectRef>> developing = projects("assignedAsDeveloper", role);
+        Map<Long, List<ProjectRef>> testing = projects("assignedAsTester", role);
+
+        List<UserSummary> summaries = new ArrayList<>();
+        for (Object[] user : query("SELECT u.id, u.username, u.email, u.role FROM User u", role).getResultList()) {
+            Long id = (Long) user[0];
+            summaries.add(new UserSummary(id, (String) user[1], (String) user[2], (String) user[3],
+                    developing.getOrDefault(id, List.of()), testing.getOrDefault(id, List.of())));
+        }
+        return summaries;
+    }
+
+    // Id and name of the projects in one of the users' project lists, by user id
+    private Map<Long, List<ProjectRef>> projects(String attribute, String role) {
+        Map<Long, List<ProjectRef>> byUser = new HashMap<>();
+        for (Object[] row : query("SELECT u.id, p.id, p.name FROM User u JOIN u." + attribute + " p", role).getResultList()) {
+            byUser.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(new ProjectRef((Long) row[1], (String) row[2]));
+        }
+        return byUser;
+    }
+
+    private TypedQuery<Object[]> query(String select, String role) {
+        if (role == null) {
+            return entityManager.createQuery(select, Object[].class);
+        }
+        return entityManager.createQuery(select + " WHERE u.role = :role", Object[].class).setParameter("role", role);
+    }
+}
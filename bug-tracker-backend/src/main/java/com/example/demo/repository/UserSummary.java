@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import java.util.List;
+
+/**
+ * Read-only view of an account for user lists: no password hash, and the projects it works on
+ * reduced to id and name. Loaded in a fixed number of queries however many users there are.
+ */
+public record UserSummary(
+        Long id,
+        String username,
+        String email,
+        String role,
+        List<ProjectRef> assignedAsDeveloper,
+        List<ProjectRef> assignedAsTester) {
+
+    public record ProjectRef(Long id, String name) {}
+}
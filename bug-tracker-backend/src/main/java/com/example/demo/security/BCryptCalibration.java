@@ -0,0 +1,41 @@
+package com.example.demo.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+/**
+ * Picks a BCrypt work factor for this machine: the largest one whose hash still takes no longer
+ * than a target time. Each step of the factor doubles the work, so only the lowest factor is
+ * measured and the rest extrapolated.
+ */
+public final class BCryptCalibration {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptCalibration.class);
+
+    // BCrypt's own upper limit is 31; beyond this a single login takes seconds on any hardware
+    private static final int MAX_STRENGTH = 16;
+
+    private BCryptCalibration() {
+    }
+
+    public static int strengthFor(Duration target, int minStrength) {
+        String salt = BCrypt.gensalt(minStrength);
+        BCrypt.hashpw("calibration", salt); // warm-up, so JIT compilation isn't measured
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        int strength = minStrength;
+        while (strength < MAX_STRENGTH && best * (1L << (strength + 1 - minStrength)) <= target.toNanos()) {
+            strength++;
+        }
+        logger.info("BCrypt strength {} ({} ms at strength {}, target {} ms)",
+                strength, best / 1_000_000, minStrength, target.toMillis());
+        return strength;
+    }
+}
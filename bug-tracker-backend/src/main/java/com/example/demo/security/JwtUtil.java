@@ -4,17 +4,16 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import java.security.Key;
 import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.JwtParser;
 
 @Component
 public class JwtUtil {
@@ -22,53 +21,78 @@ public class JwtUtil {
     @Value("${app.jwt.secret}")
     private String secret;
 
+    // Lifetime of access tokens, in milliseconds
     @Value("${app.jwt.expiration}")
     private long expiration;
 
+    @Value("${app.jwt.refresh-expiration:1209600000}")
+    private long refreshExpiration;
+
+    public static final String ROLE_CLAIM = "role";
+    // Login session shared by every token issued from one login, for revoking them together
+    public static final String SESSION_CLAIM = "sid";
+    public static final String TYPE_CLAIM = "typ";
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
     private Key key;
 
+    // Thread-safe and immutable, so one instance serves every request
+    private JwtParser parser;
+
     @jakarta.annotation.PostConstruct
     public void init() {
         byte[] keyBytes = Base64.getDecoder().decode(secret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
-    public String generateToken(String username, String role) {
+    public String generateToken(String username, String role, String sessionId) {
         return Jwts.builder()
                 .setSubject(username)
-                .claim("role", role)
+                .setId(UUID.randomUUID().toString())
+                .claim(ROLE_CLAIM, role)
+                .claim(SESSION_CLAIM, sessionId)
+                .claim(TYPE_CLAIM, ACCESS)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(key, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-   
-    public String extractUsername(String token) {
-        return extractClaims(token).getSubject();
+    // Exchanged once for a new access and refresh token; carries no role, which is re-read on refresh
+    public String generateRefreshToken(String username, String sessionId) {
+        return Jwts.builder()
+                .setSubject(username)
+                .setId(UUID.randomUUID().toString())
+                .claim(SESSION_CLAIM, sessionId)
+                .claim(TYPE_CLAIM, REFRESH)
+                .setIssuedAt(new Date())
+                .setExpiration(refreshExpiry())
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
     }
 
-    public String extractRole(String token) {
-        return (String) extractClaims(token).get("role");
+    // Latest expiry of any token issued now, which bounds how long a revoked session must stay listed
+    public Date refreshExpiry() {
+        return new Date(System.currentTimeMillis() + refreshExpiration);
     }
 
- 
-    private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+   
+    public String extractUsername(String token) {
+        return parse(token).getSubject();
     }
 
-  
-    public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public String extractRole(String token) {
+        return (String) parse(token).get(ROLE_CLAIM);
     }
 
-
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
+    /**
+     * Verifies the signature and expiry and returns the claims, in a single parse.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 }
\ No newline at end of file
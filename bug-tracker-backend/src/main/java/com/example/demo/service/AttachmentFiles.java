@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Attachment bytes on disk: one file per distinct content under {@code <upload dir>/attachments},
+ * named by its SHA-256. Shared by {@link AttachmentService} and the migration that moved images
+ * out of the database, so both write to the same place.
+ */
+public final class AttachmentFiles {
+
+    // Bytes hashed into a temp file under the store, not yet at their content-addressed path
+    public record StagedFile(Path tmp, String sha256, long size) {}
+
+    private final Path root;
+
+    public AttachmentFiles(String uploadDir) {
+        this.root = Path.of(uploadDir, "attachments").toAbsolutePath();
+    }
+
+    /**
+     * Copies {@code in} to a temp file through an 8 KB buffer while hashing it. Memory use does
+     * not depend on the image size. The caller deletes the temp file once it has been published.
+     */
+    public StagedFile stage(InputStream in) throws IOException {
+        Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            DigestInputStream hashing = new DigestInputStream(in, sha256());
+            long size;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                size = hashing.transferTo(out);
+            }
+            return new StagedFile(tmp, HexFormat.of().formatHex(hashing.getMessageDigest().digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    // Moves a staged file to its content-addressed location, unless a file with that content is already there
+    public void publish(StagedFile staged) throws IOException {
+        Path target = path(staged.sha256());
+        if (Files.exists(target)) return;
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged.tmp(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Same content was stored concurrently; either copy will do
+        }
+    }
+
+    /**
+     * Deletes the file holding {@code sha256} unless {@code stillStored} reports a row for it. The
+     * file is moved aside before the check, so an upload of the same bytes racing the delete either
+     * inserted its row first, and the file is put back, or finds the file gone and publishes its
+     * own copy. Returns whether the bytes are gone (deleted here, or missing already).
+     */
+    public boolean delete(String sha256, BooleanSupplier stillStored) throws IOException {
+        Path target = path(sha256);
+        Path aside = Files.createDirectories(root.resolve("tmp")).resolve(sha256 + ".deleted");
+        try {
+            Files.move(target, aside, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return !stillStored.getAsBoolean();
+        }
+        if (stillStored.getAsBoolean()) {
+            try {
+                Files.move(aside, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // The upload has published the same bytes already
+                Files.delete(aside);
+            }
+            return false;
+        }
+        Files.delete(aside);
+        return true;
+    }
+
+    public Path path(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import com.example.demo.model.AttachmentReference;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps {@code attachment.ref_count} in step with the {@link AttachmentReference} columns of
+ * every entity. Counts are adjusted with plain SQL on the flushing connection, so they commit
+ * or roll back together with the row that gained or lost the reference.
+ */
+@Component
+@RequiredArgsConstructor
+public class AttachmentReferenceListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Indexes into the persister's property array that hold attachment ids, per entity name
+    private final Map<String, int[]> referenceProperties = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        for (int i : references(event.getPersister())) {
+            adjust(event.getSession(), event.getState()[i], 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // Old state is missing only for detached updates, which this app never issues;
+        // the unreferenced sweep re-checks real references before deleting anything anyway.
+        if (event.getOldState() == null) return;
+        for (int i : references(event.getPersister())) {
+            Object before = event.getOldState()[i];
+            Object after = event.getState()[i];
+            if (!Objects.equals(before, after)) {
+                adjust(event.getSession(), before, -1);
+                adjust(event.getSession(), after, 1);
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        for (int i : references(event.getPersister())) {
+            adjust(event.getSession(), event.getDeletedState()[i], -1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void adjust(EventSource session, Object attachmentId, int delta) {
+        if (attachmentId == null) return;
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE attachment SET ref_count = ref_count + ? WHERE id = ?")) {
+                statement.setInt(1, delta);
+                statement.setLong(2, (Long) attachmentId);
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    private int[] references(EntityPersister persister) {
+        return referenceProperties.computeIfAbsent(persister.getEntityName(), name -> {
+            Class<?> type = persister.getMappedClass();
+            String[] properties = persister.getPropertyNames();
+            return IntStream.range(0, properties.length)
+                    .filter(i -> {
+                        Field field = ReflectionUtils.findField(type, properties[i]);
+                        return field != null && field.isAnnotationPresent(AttachmentReference.class);
+                    })
+                    .toArray();
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.model.Attachment;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes an attachment file to the response without copying it through the heap. On Tomcat
+ * connectors that support sendfile the kernel does the copy; otherwise the file is pushed with
+ * {@link FileChannel#transferTo}. A single byte range is honoured with 206 Partial Content;
+ * multi-range requests get the whole file, which RFC 9110 allows.
+ * <p>
+ * A {@code size} of thumb, small or medium serves the matching JPEG rendition. Until the
+ * rendition worker has produced it the original is served and the job is queued again.
+ * <p>
+ * Responses carry a strong ETag built from the content hash (plus the rendition size), so a
+ * conditional request is answered with 304 from the attachment row alone. Endpoints whose
+ * attachment can never change are served as immutable; the current bug or task image must be
+ * revalidated, and its ETag changes whenever a different image is attached.
+ * <p>
+ * Files up to {@code bugtracker.image-cache.max-entry-size} (thumbnails, most screenshots) are
+ * kept in the byte-weighted {@link CacheConfig#IMAGE_BYTES} cache. Paths are content-addressed,
+ * so a cached entry can never go stale and needs no invalidation.
+ */
+@Component
+@RequiredArgsConstructor
+public class AttachmentResponder {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final AttachmentService attachmentService;
+    private final RenditionService renditionService;
+    private final CacheManager cacheManager;
+
+    @Value("${bugtracker.image-cache.max-entry-size:512KB}")
+    private DataSize maxEntrySize;
+
+    private Cache imageBytes;
+
+    @PostConstruct
+    void init() {
+        imageBytes = cacheManager.getCache(CacheConfig.IMAGE_BYTES);
+    }
+
+    /**
+     * @param immutable whether the URL always resolves to the same attachment, e.g. a log image
+     */
+    public void write(Long attachmentId, String size, boolean immutable,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        RenditionService.Size rendition = null;
+        if (size != null && !size.isBlank()) {
+            rendition = RenditionService.Size.parse(size).orElse(null);
+            if (rendition == null) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+        }
+
+        Attachment attachment = attachmentService.find(attachmentId).orElse(null);
+        if (attachment == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path file = attachmentService.path(attachment);
+        String contentType = attachment.getContentType();
+        String etag = "\"" + attachment.getSha256() + "\"";
+        byte[] bytes = null;
+        boolean scaledReady = false;
+        if (rendition != null) {
+            Path scaled = renditionService.path(file, rendition);
+            bytes = imageBytes.get(scaled.toString(), byte[].class);
+            scaledReady = bytes != null || Files.isReadable(scaled);
+            if (scaledReady) {
+                file = scaled;
+                contentType = RenditionService.CONTENT_TYPE;
+                etag = "\"" + attachment.getSha256() + "." + rendition.name().toLowerCase(Locale.ROOT) + "\"";
+            } else {
+                renditionService.submit(file);
+                // The original stands in for now; don't let it be cached as the rendition
+                immutable = false;
+            }
+        }
+        if (!scaledReady) {
+            bytes = imageBytes.get(file.toString(), byte[].class);
+            if (bytes == null && !Files.isReadable(file)) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, (immutable ? IMMUTABLE : REVALIDATE).getHeaderValue());
+        // A mutable URL can switch to an older attachment, so only an immutable one may offer
+        // Last-Modified; otherwise If-Modified-Since could wrongly match
+        long lastModified = immutable && attachment.getCreatedAt() != null ? attachment.getCreatedAt().getTime() : -1;
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        if (bytes == null) {
+            bytes = load(file);
+        }
+        long length = bytes != null ? bytes.length : Files.size(file);
+        long start = 0;
+        long end = length - 1;
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // If-Range naming an older representation means the client needs the whole file
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        List<HttpRange> ranges = ifRange == null || ifRange.equals(etag)
+                ? parseRanges(request.getHeader(HttpHeaders.RANGE))
+                : List.of();
+        if (ranges.size() == 1) {
+            HttpRange range = ranges.get(0);
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+        if (bytes != null) {
+            response.getOutputStream().write(bytes, (int) start, (int) count);
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat streams the file itself once the servlet returns (end is exclusive)
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (count > 0) {
+                long sent = channel.transferTo(position, count, out);
+                position += sent;
+                count -= sent;
+            }
+        }
+    }
+
+    // Reads a small file into the cache; larger files return null and are streamed from disk
+    private byte[] load(Path file) throws IOException {
+        if (Files.size(file) > maxEntrySize.toBytes()) return null;
+        byte[] bytes = Files.readAllBytes(file);
+        imageBytes.put(file.toString(), bytes);
+        return bytes;
+    }
+
+    private static List<HttpRange> parseRanges(String header) {
+        if (header == null) return List.of();
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            // A malformed Range header is ignored and the full file is sent
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.model.Attachment;
+import com.example.demo.repository.AttachmentRepository;
+import com.example.demo.service.AttachmentFiles.StagedFile;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Stores attachment bytes as files under {@code <bugtracker.upload.dir>/attachments}, named by
+ * their SHA-256, with one metadata row per distinct content in the database. Uploading bytes
+ * that are already stored returns the existing attachment. Rows whose reference count has
+ * dropped to zero are removed, together with their file, by {@link #deleteUnreferenced()}.
+ * Every stored image is handed to {@link RenditionService} for thumbnails.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttachmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentService.class);
+
+    static final String DEFAULT_CONTENT_TYPE = "image/jpeg";
+
+    // Every column that can hold an attachment id (the @AttachmentReference fields), as table/column
+    private static final String[][] REFERENCES = {
+            {"bug", "tester_image_id"},
+            {"bug", "original_tester_image_id"},
+            {"bug_log", "image_id"},
+            {"tasks", "developer_image_id"},
+            {"tasks", "original_developer_image_id"},
+            {"task_logs", "image_id"},
+    };
+
+    private final AttachmentRepository attachmentRepository;
+    private final RenditionService renditionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final JobLockService jobLockService;
+
+    @Value("${bugtracker.upload.dir:uploads}")
+    private String uploadDir;
+
+    // How long a freshly uploaded attachment may stay unreferenced before the sweep removes it
+    @Value("${bugtracker.attachments.unreferenced-grace:P1D}")
+    private Duration unreferencedGrace;
+
+    @Value("${bugtracker.attachments.sweep-interval:PT1H}")
+    private Duration sweepInterval;
+
+    private AttachmentFiles files;
+
+    @PostConstruct
+    void init() {
+        files = new AttachmentFiles(uploadDir);
+    }
+
+    /**
+     * Stores an uploaded image and returns its id, or {@code null} when nothing was uploaded.
+     * The upload is streamed from the multipart temp file; it is never read into a byte[].
+     * Runs outside the caller's transaction: the attachment row commits on its own (the sweep
+     * removes it if the caller rolls back), and a lost insert race cannot doom the caller.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Long store(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) return null;
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getContentType());
+        }
+    }
+
+    public Long store(InputStream in, String contentType) throws IOException {
+        StagedFile staged = files.stage(in);
+        try {
+            Long id = attachmentFor(staged, contentType);
+            // Only once a row holds these bytes: a sweep that has just removed an older row with the
+            // same content may have deleted the file, and it is put back here
+            files.publish(staged);
+            renditionService.submit(files.path(staged.sha256()));
+            return id;
+        } finally {
+            Files.deleteIfExists(staged.tmp());
+        }
+    }
+
+    // The id of the attachment already holding these bytes, or of a new one
+    private Long attachmentFor(StagedFile staged, String contentType) {
+        Date now = new Date();
+        Attachment existing = attachmentRepository.findFirstBySha256OrderByIdAsc(staged.sha256()).orElse(null);
+        // Matches nothing if the sweep deleted the row after the lookup; it is then inserted again
+        if (existing != null && attachmentRepository.touch(existing.getId(), now) == 1) {
+            return existing.getId();
+        }
+
+        Attachment attachment = new Attachment();
+        attachment.setContentType(contentType != null ? contentType : DEFAULT_CONTENT_TYPE);
+        attachment.setSize(staged.size());
+        attachment.setSha256(staged.sha256());
+        attachment.setCreatedAt(now);
+        attachment.setLastStoredAt(now);
+        try {
+            return attachmentRepository.saveAndFlush(attachment).getId();
+        } catch (DataIntegrityViolationException e) {
+            // The same bytes were stored concurrently between the lookup and the insert
+            return attachmentRepository.findFirstBySha256OrderByIdAsc(staged.sha256())
+                    .orElseThrow(() -> e)
+                    .getId();
+        }
+    }
+
+    /**
+     * Adjusts the reference count of an attachment that gained or lost a reference through a
+     * bulk UPDATE, which AttachmentReferenceListener does not see. Runs in the caller's transaction.
+     */
+    public void addReferences(Long attachmentId, int delta) {
+        if (attachmentId == null) return;
+        jdbcTemplate.update("UPDATE attachment SET ref_count = ref_count + ? WHERE id = ?", delta, attachmentId);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.ATTACHMENTS, unless = "#result == null")
+    public Optional<Attachment> find(Long id) {
+        if (id == null) return Optional.empty();
+        return attachmentRepository.findById(id);
+    }
+
+    /**
+     * Removes attachments that nothing references any more. The reference count is re-checked
+     * against the owning tables first, and the delete itself is conditional, so an attachment
+     * that gains a reference or is re-uploaded while the sweep runs is kept.
+     */
+    @Scheduled(fixedDelayString = "${bugtracker.attachments.sweep-interval:PT1H}")
+    public void deleteUnreferenced() {
+        // One instance sweeps; its lease spans two intervals so it keeps the job while it runs
+        if (jobLockService.acquire("attachment-sweep", sweepInterval.multipliedBy(2)).isEmpty()) return;
+        Date cutoff = Date.from(Instant.now().minus(unreferencedGrace));
+        Cache attachments = cacheManager.getCache(CacheConfig.ATTACHMENTS);
+        int deleted = 0;
+        for (Attachment attachment : attachmentRepository.findUnreferencedSince(cutoff)) {
+            Boolean removed = transactionTemplate.execute(status -> {
+                long references = countReferences(attachment.getId());
+                if (references > 0) {
+                    // The count drifted (e.g. rows changed outside JPA); repair it instead of deleting
+                    jdbcTemplate.update("UPDATE attachment SET ref_count = ? WHERE id = ?", references, attachment.getId());
+                    return false;
+                }
+                return jdbcTemplate.update(
+                        "DELETE FROM attachment WHERE id = ? AND ref_count <= 0"
+                                + " AND COALESCE(last_stored_at, created_at) < ?",
+                        attachment.getId(), cutoff) == 1;
+            });
+            if (Boolean.TRUE.equals(removed) && attachments != null) {
+                attachments.evict(attachment.getId());
+            }
+            if (Boolean.TRUE.equals(removed)) {
+                try {
+                    // Another row may hold the same bytes, or an upload of them may be inserting one right now
+                    if (files.delete(attachment.getSha256(), () -> attachmentRepository.existsBySha256(attachment.getSha256()))) {
+                        renditionService.delete(path(attachment));
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Could not delete attachment file {}", path(attachment), e);
+                }
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} unreferenced attachments", deleted);
+        }
+    }
+
+    private long countReferences(Long attachmentId) {
+        long references = 0;
+        for (String[] reference : REFERENCES) {
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + reference[0] + " WHERE " + reference[1] + " = ?", Long.class, attachmentId);
+            references += count != null ? count : 0;
+        }
+        return references;
+    }
+
+    public Path path(Attachment attachment) {
+        return files.path(attachment.getSha256());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set membership with false positives but no false negatives, in a fixed number of bits.
+ * Adding is thread-safe and lock-free; entries can't be removed, so callers replace the whole
+ * filter to drop them.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    /**
+     * Sized so that {@code expectedEntries} entries give roughly {@code falsePositiveRate}.
+     */
+    BloomFilter(int expectedEntries, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-Math.max(1, expectedEntries) * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = wordCount * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / Math.max(1, expectedEntries) * ln2));
+    }
+
+    void put(String key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bits;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // FNV-1a over the UTF-8 bytes, then a 64-bit finalizer so every bit depends on the whole key
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Bug;
+import com.example.demo.model.Bug.BugPriority;
+import com.example.demo.model.Bug.BugStatus;
+import com.example.demo.repository.BugRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Flags bugs whose status has not changed within the SLA for their priority. Deadlines are kept
+ * in a priority queue ordered by due time and fed by committed bug inserts and updates; a tick
+ * flips everything that has fallen due in a few batched UPDATEs, so read endpoints never write.
+ * <p>
+ * The queue is only a schedule. Every UPDATE re-checks the row (still open, not breached, no
+ * newer status change), so stale or duplicate entries are harmless, and a periodic reload from
+ * the database picks up changes this instance did not see. Only the holder of the {@value #JOB}
+ * lease keeps a queue: it loads the deadlines when it takes the lease and drops them when it
+ * loses it, so other instances hold nothing.
+ */
+@Service
+@RequiredArgsConstructor
+public class BreachDetector implements PostCommitInsertEventListener, PostCommitUpdateEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BreachDetector.class);
+
+    static final String JOB = "sla-breach";
+
+    // Upper bound on ids per UPDATE ... IN (...)
+    private static final int BATCH_SIZE = 500;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final BugRepository bugRepository;
+    private final JobLockService jobLockService;
+
+    @Value("${bugtracker.sla.high:PT3M30S}")
+    private Duration highSla;
+
+    @Value("${bugtracker.sla.medium:PT3M30S}")
+    private Duration mediumSla;
+
+    @Value("${bugtracker.sla.low:PT3M30S}")
+    private Duration lowSla;
+
+    private record Deadline(Long bugId, Instant lastStatusChange, Duration sla, Instant due) {}
+
+    // Guarded by itself; current holds the live deadline per bug, anything else in the queue is superseded
+    private final PriorityQueue<Deadline> queue = new PriorityQueue<>(Comparator.comparing(Deadline::due));
+    private final Map<Long, Deadline> current = new HashMap<>();
+
+    // Fencing token of the lease this instance last flagged under
+    private long leaseToken;
+
+    // Whether this instance held the lease at its last tick; written under the queue's lock
+    private volatile boolean leading;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Bug bug) {
+            track(bug.getId(), bug.getStatus(), bug.getPriority(), bug.getLastStatusChange(), bug.isWasBreached());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Bug bug) {
+            track(bug.getId(), bug.getStatus(), bug.getPriority(), bug.getLastStatusChange(), bug.isWasBreached());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Bug.class.equals(persister.getMappedClass());
+    }
+
+    /**
+     * Tracks a status change made with a bulk UPDATE, which raises no entity events, once the
+     * current transaction commits.
+     */
+    public void statusChanged(Bug bug) {
+        Runnable track = () -> track(bug.getId(), bug.getStatus(), bug.getPriority(), bug.getLastStatusChange(),
+                bug.isWasBreached());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            track.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                track.run();
+            }
+        });
+    }
+
+    /**
+     * Reloads the deadlines of all open bugs while this instance holds the lease; runs when it takes
+     * the lease over and then periodically.
+     */
+    @Scheduled(fixedDelayString = "${bugtracker.sla.reload-interval:PT10M}")
+    public void reload() {
+        if (!leading) return;
+        List<BugRepository.SlaClock> clocks = bugRepository.findSlaClocks();
+        for (BugRepository.SlaClock clock : clocks) {
+            track(clock.getId(), clock.getStatus(), clock.getPriority(), clock.getLastStatusChange(), false);
+        }
+        logger.debug("Tracking SLA deadlines for {} open bugs", clocks.size());
+    }
+
+    @Scheduled(fixedDelayString = "${bugtracker.sla.check-interval:PT5S}")
+    public void flagBreaches() {
+        Optional<JobLockService.Lease> lease = jobLockService.acquire(JOB);
+        if (lease.isEmpty()) {
+            if (leading) stopLeading();
+            return;
+        }
+        if (lease.get().token() != leaseToken) {
+            // Just took over: another instance was flagging, so catch up with the database first
+            synchronized (queue) {
+                leading = true;
+            }
+            reload();
+            leaseToken = lease.get().token();
+        }
+        Instant now = Instant.now();
+        // Due bugs grouped by SLA, so each group shares one cutoff
+        Map<Duration, List<Long>> due = new HashMap<>();
+        synchronized (queue) {
+            while (!queue.isEmpty() && !queue.peek().due().isAfter(now)) {
+                Deadline deadline = queue.poll();
+                if (current.remove(deadline.bugId(), deadline)) {
+                    due.computeIfAbsent(deadline.sla(), sla -> new ArrayList<>()).add(deadline.bugId());
+                }
+            }
+        }
+        int flagged = 0;
+        for (Map.Entry<Duration, List<Long>> group : due.entrySet()) {
+            Date cutoff = Date.from(now.minus(group.getKey()));
+            List<Long> ids = group.getValue();
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                flagged += bugRepository.markBreached(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())), cutoff,
+                        JOB, lease.get().token());
+            }
+        }
+        if (flagged > 0) {
+            logger.info("Flagged {} bugs as SLA breached", flagged);
+        }
+    }
+
+    // Lost the lease to another instance; this one reloads if it takes the lease back
+    private void stopLeading() {
+        synchronized (queue) {
+            leading = false;
+            queue.clear();
+            current.clear();
+        }
+        leaseToken = 0;
+    }
+
+    private void track(Long bugId, BugStatus status, BugPriority priority, Date lastStatusChange, boolean breached) {
+        if (bugId == null) return;
+        synchronized (queue) {
+            if (!leading) return;
+            if (breached || lastStatusChange == null || status == BugStatus.RESOLVED || status == BugStatus.CLOSED) {
+                current.remove(bugId);
+                compact();
+                return;
+            }
+            Instant changed = lastStatusChange.toInstant();
+            Deadline existing = current.get(bugId);
+            Duration sla = sla(priority);
+            if (existing != null && existing.lastStatusChange().equals(changed) && existing.sla().equals(sla)) return;
+            Deadline deadline = new Deadline(bugId, changed, sla, changed.plus(sla));
+            current.put(bugId, deadline);
+            queue.add(deadline);
+            compact();
+        }
+    }
+
+    // Superseded entries otherwise stay queued until due; rebuild once they outnumber the live ones
+    private void compact() {
+        if (queue.size() > 2 * current.size() + 64) {
+            queue.clear();
+            queue.addAll(current.values());
+        }
+    }
+
+    private Duration sla(BugPriority priority) {
+        if (priority == null) return lowSla;
+        return switch (priority) {
+            case HIGH -> highSla;
+            case MEDIUM -> mediumSla;
+            case LOW -> lowSla;
+        };
+    }
+}
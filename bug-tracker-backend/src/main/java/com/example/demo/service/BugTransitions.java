@@ -0,0 +1,137 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Bug;
+import com.example.demo.model.Bug.BugStatus;
+import com.example.demo.model.BugLog;
+import com.example.demo.model.User;
+import com.example.demo.repository.BugLogRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.example.demo.model.Bug.BugStatus.*;
+
+/**
+ * Status changes of bugs. A change is checked against {@link #ALLOWED} and written with a
+ * conditional UPDATE on the id, status and version the caller read, so of two concurrent changes
+ * to the same bug exactly one applies and the other gets a 409 instead of silently overwriting it.
+ */
+@Service
+@RequiredArgsConstructor
+public class BugTransitions {
+
+    // Statuses a bug may move to from each status; ASSIGNED to ASSIGNED is a reassignment and
+    // IN_PROGRESS to IN_PROGRESS a progress note
+    private static final Map<BugStatus, Set<BugStatus>> ALLOWED = Map.of(
+            OPEN, EnumSet.of(ASSIGNED),
+            ASSIGNED, EnumSet.of(ASSIGNED, IN_PROGRESS, RESOLVED),
+            IN_PROGRESS, EnumSet.of(ASSIGNED, IN_PROGRESS, RESOLVED),
+            RESOLVED, EnumSet.of(ASSIGNED, IN_PROGRESS, CLOSED),
+            CLOSED, EnumSet.noneOf(BugStatus.class));
+
+    /**
+     * Target of a transition: the new status, and the fields that change with it, null for
+     * fields left as they are.
+     */
+    public record Transition(BugStatus status, User assignedTo, String resolution, Long testerImageId) {
+
+        public static Transition to(BugStatus status) {
+            return new Transition(status, null, null, null);
+        }
+
+        public Transition assignedTo(User developer) {
+            return new Transition(status, developer, resolution, testerImageId);
+        }
+
+        public Transition resolution(String text) {
+            return new Transition(status, assignedTo, text, testerImageId);
+        }
+
+        public Transition testerImageId(Long imageId) {
+            return new Transition(status, assignedTo, resolution, imageId);
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final BugLogRepository bugLogRepository;
+    private final AttachmentService attachmentService;
+    private final BreachDetector breachDetector;
+
+    public boolean allows(BugStatus from, BugStatus to) {
+        return ALLOWED.getOrDefault(from, Set.of()).contains(to);
+    }
+
+    /**
+     * Applies {@code transition} to {@code bug} if it still has the status and version it was
+     * read with, and appends {@code log} for it. On return {@code bug} carries the new state and
+     * is read-only for the rest of the session.
+     *
+     * @throws ResponseStatusException 409 if the transition is not allowed from the bug's status
+     *                                 or the bug was changed since it was read
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Bug apply(Bug bug, Transition transition, BugLog log) {
+        BugStatus from = bug.getStatus();
+        if (!allows(from, transition.status())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Bug " + bug.getId() + " cannot move from " + from + " to " + transition.status());
+        }
+        // Changes to the managed copy would otherwise be flushed over the row with its old version
+        entityManager.unwrap(Session.class).setReadOnly(bug, true);
+
+        Date now = new Date();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Bug> update = cb.createCriteriaUpdate(Bug.class);
+        Root<Bug> root = update.from(Bug.class);
+        update.set(root.<BugStatus>get("status"), transition.status())
+                .set(root.<Date>get("lastStatusChange"), now)
+                .set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        if (transition.assignedTo() != null) update.set(root.<User>get("assignedTo"), transition.assignedTo());
+        if (transition.resolution() != null) update.set(root.<String>get("resolution"), transition.resolution());
+        if (transition.testerImageId() != null) update.set(root.<Long>get("testerImageId"), transition.testerImageId());
+        update.where(cb.equal(root.get("id"), bug.getId()),
+                cb.equal(root.get("status"), from),
+                cb.equal(root.get("version"), bug.getVersion()));
+        if (entityManager.createQuery(update).executeUpdate() == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Bug " + bug.getId() + " was changed by someone else; reload it and try again");
+        }
+
+        Long previousImageId = bug.getTesterImageId();
+        bug.setStatus(transition.status());
+        bug.setLastStatusChange(now);
+        bug.setVersion(bug.getVersion() + 1);
+        if (transition.assignedTo() != null) bug.setAssignedTo(transition.assignedTo());
+        if (transition.resolution() != null) bug.setResolution(transition.resolution());
+        if (transition.testerImageId() != null && !Objects.equals(previousImageId, transition.testerImageId())) {
+            // The bulk UPDATE bypasses AttachmentReferenceListener
+            attachmentService.addReferences(previousImageId, -1);
+            attachmentService.addReferences(transition.testerImageId(), 1);
+            bug.setTesterImageId(transition.testerImageId());
+        }
+
+        log.setBug(bug);
+        log.setStatus(transition.status().name());
+        log.setTimestamp(now);
+        bugLogRepository.save(log);
+        breachDetector.statusChanged(bug);
+        return bug;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.JobLockRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Leases on background jobs, kept in the {@code job_lock} table so that every replica of the
+ * backend agrees on which one runs a given job. A scheduled job calls {@link #acquire} on each
+ * tick and skips the tick unless it gets a lease: the holder renews its lease as long as it keeps
+ * running, and another instance takes over once a lease has expired without renewal.
+ * <p>
+ * Each hand-over increments the lease's fencing token. Writes that must not come from a former
+ * holder (one that stalled past its lease) can check the token in the same statement.
+ * <p>
+ * Expiry is judged by each instance's own clock, so the lease must be comfortably longer than
+ * both the job's tick and the clock skew between nodes.
+ */
+@Service
+@RequiredArgsConstructor
+public class JobLockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLockService.class);
+
+    public record Lease(String job, long token) {}
+
+    private final JobLockRepository jobLockRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    // 1 while this instance holds the job's lease, published as bugtracker.jobs.leader
+    private final Map<String, AtomicInteger> leader = new ConcurrentHashMap<>();
+
+    @Value("${bugtracker.jobs.lease:PT30S}")
+    private Duration defaultLease;
+
+    public Optional<Lease> acquire(String job) {
+        return acquire(job, defaultLease);
+    }
+
+    /**
+     * Renews or takes the lease on {@code job} for {@code duration}. Empty when another instance
+     * holds it.
+     */
+    public Optional<Lease> acquire(String job, Duration duration) {
+        Instant now = Instant.now();
+        Date until = Date.from(now.plus(duration));
+        String outcome;
+        if (jobLockRepository.renew(job, owner, Date.from(now), until) > 0) {
+            outcome = "renewed";
+        } else if (jobLockRepository.takeOver(job, owner, Date.from(now), until) > 0 || create(job, until)) {
+            outcome = "acquired";
+        } else {
+            outcome = "held-elsewhere";
+        }
+        meterRegistry.counter("bugtracker.jobs.lock", "job", job, "outcome", outcome).increment();
+        boolean held = !"held-elsewhere".equals(outcome);
+        leaderGauge(job).set(held ? 1 : 0);
+        if (!held) return Optional.empty();
+
+        // Re-read for the token; a lease that expired between the two statements is simply lost
+        Optional<Lease> lease = jobLockRepository.findById(job)
+                .filter(lock -> owner.equals(lock.getOwner()))
+                .map(lock -> new Lease(job, lock.getToken()));
+        if ("acquired".equals(outcome) && lease.isPresent()) {
+            logger.info("Acquired lease on job {} (token {})", job, lease.get().token());
+        }
+        return lease;
+    }
+
+    @PreDestroy
+    void releaseAll() {
+        // Lets another instance take over right away instead of waiting for the leases to expire
+        try {
+            jobLockRepository.releaseAll(owner, new Date());
+        } catch (RuntimeException e) {
+            logger.debug("Could not release job leases on shutdown", e);
+        }
+    }
+
+    private boolean create(String job, Date until) {
+        // The insert races only while a job has never run; skip it once the row exists
+        if (jobLockRepository.existsById(job)) return false;
+        try {
+            return jobLockRepository.create(job, owner, until) > 0;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private AtomicInteger leaderGauge(String job) {
+        return leader.computeIfAbsent(job, name ->
+                meterRegistry.gauge("bugtracker.jobs.leader", Tags.of("job", name), new AtomicInteger()));
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.demo.service;
+
+import com.example.demo.model.OutboxMessage;
+import com.example.demo.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends queued {@link OutboxMessage}s. Each poll takes a batch of due messages and sends them on
+ * a small pool; a failed send is retried with exponential backoff, and a message that keeps
+ * failing is marked DEAD and left in the table for inspection. Only the instance holding the
+ * {@value #JOB} lease sends, so a message is never sent twice by different replicas.
+ * <p>
+ * When a digest message falls due, every pending digest message to the same recipients (due or
+ * not) is sent along with it as one mail listing their subjects.
+ */
+@Service
+@RequiredArgsConstructor
+public class MailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxDispatcher.class);
+
+    static final String JOB = "mail-outbox";
+
+    // Outlasts a batch that hits SMTP timeouts, so the lease cannot move mid-batch
+    private static final Duration LEASE = Duration.ofMinutes(2);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final SmtpTransportPool smtpTransportPool;
+    private final JobLockService jobLockService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${bugtracker.mail.outbox.threads:4}")
+    private int threads;
+
+    @Value("${bugtracker.mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${bugtracker.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${bugtracker.mail.outbox.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${bugtracker.mail.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger count = new AtomicInteger();
+        // A batch never exceeds the queue, so submissions are never rejected
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), runnable -> {
+                    Thread thread = new Thread(runnable, "mail-outbox-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${bugtracker.mail.outbox.poll-interval:PT2S}")
+    public void dispatch() {
+        if (jobLockService.acquire(JOB, LEASE).isEmpty()) return;
+        List<OutboxMessage> batch = outboxMessageRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                OutboxMessage.Status.PENDING, new Date(), Limit.of(batchSize));
+        if (batch.isEmpty()) return;
+        List<List<OutboxMessage>> mails = new ArrayList<>();
+        // A digest message is sent with its whole group, fetched once per distinct set of recipients
+        Set<List<String>> digestGroups = new HashSet<>();
+        for (OutboxMessage message : batch) {
+            if (!message.isDigest()) {
+                mails.add(List.of(message));
+            } else if (digestGroups.add(Arrays.asList(message.getRecipient(), message.getCc(), message.getBcc()))) {
+                mails.add(outboxMessageRepository.findByStatusAndDigestTrueAndRecipientAndCcAndBccOrderByIdAsc(
+                        OutboxMessage.Status.PENDING, message.getRecipient(), message.getCc(), message.getBcc()));
+            }
+        }
+        mails.removeIf(List::isEmpty);
+        // One chunk per worker, each sent back to back over a single pooled SMTP connection
+        int workers = Math.min(threads, mails.size());
+        List<Callable<Void>> sends = new ArrayList<>();
+        for (int worker = 0; worker < workers; worker++) {
+            List<List<OutboxMessage>> chunk = new ArrayList<>();
+            for (int i = worker; i < mails.size(); i += workers) {
+                chunk.add(mails.get(i));
+            }
+            sends.add(() -> {
+                try (SmtpTransportPool.Session smtp = smtpTransportPool.borrow()) {
+                    for (List<OutboxMessage> mail : chunk) {
+                        deliver(mail, smtp);
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            executor.invokeAll(sends);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Sends the messages as one mail (a digest if there are several) and records the outcome on each
+    private void deliver(List<OutboxMessage> messages, SmtpTransportPool.Session smtp) {
+        String outcome;
+        try {
+            smtp.send(smtpTransportPool.toMimeMessage(messages.size() == 1 ? toMail(messages.get(0)) : toDigest(messages)));
+            Date sentAt = new Date();
+            for (OutboxMessage message : messages) {
+                message.setStatus(OutboxMessage.Status.SENT);
+                message.setSentAt(sentAt);
+            }
+            outcome = messages.size() == 1 ? "sent" : "digest";
+        } catch (MailException e) {
+            outcome = "retry";
+            for (OutboxMessage message : messages) {
+                message.setAttempts(message.getAttempts() + 1);
+                message.setLastError(truncate(String.valueOf(e.getMessage()), 1000));
+                if (message.getAttempts() >= maxAttempts) {
+                    message.setStatus(OutboxMessage.Status.DEAD);
+                    logger.warn("Giving up on mail {} to {} after {} attempts", message.getId(),
+                            message.getRecipient(), message.getAttempts(), e);
+                    outcome = "dead";
+                } else {
+                    message.setNextAttemptAt(Date.from(Instant.now().plus(backoff(message.getAttempts()))));
+                    logger.debug("Mail {} failed (attempt {}), retrying later", message.getId(), message.getAttempts(), e);
+                }
+            }
+        }
+        outboxMessageRepository.saveAll(messages);
+        meterRegistry.counter("bugtracker.mail.outbox", "outcome", outcome).increment(messages.size());
+    }
+
+    // initialBackoff, doubled per failed attempt, capped at maxBackoff
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static SimpleMailMessage toMail(OutboxMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setTo(message.getRecipient());
+        mail.setSubject(message.getSubject());
+        mail.setText(message.getBody());
+        if (message.getCc() != null) mail.setCc(message.getCc().split(","));
+        if (message.getBcc() != null) mail.setBcc(message.getBcc().split(","));
+        return mail;
+    }
+
+    private static SimpleMailMessage toDigest(List<OutboxMessage> messages) {
+        SimpleMailMessage mail = toMail(messages.get(0));
+        mail.setSubject(messages.size() + " bug tracker notifications");
+        StringBuilder text = new StringBuilder("You have " + messages.size() + " new notifications:\n\n");
+        for (OutboxMessage message : messages) {
+            text.append("- ").append(message.getSubject()).append('\n');
+        }
+        mail.setText(text.toString());
+        return mail;
+    }
+
+    private static String truncate(String value, int length) {
+        return value.length() <= length ? value : value.substring(0, length);
+    }
+}
@@ -1,30 +1,64 @@
 package com.example.demo.service;
 
+import com.example.demo.model.OutboxMessage;
+import com.example.demo.repository.OutboxMessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Queues notification emails in the outbox. The row joins the caller's transaction, so a mail
+ * goes out only if the change it describes commits; MailOutboxDispatcher sends it afterwards.
+ * <p>
+ * Notifications about urgent items (see {@code bugtracker.mail.digest.urgent-priorities}) are
+ * sent right away. Everything else is held for the digest window, and whatever has piled up for
+ * the same recipients by then goes out as a single digest.
+ */
 @Service
 public class MailService {
     @Autowired
-    private JavaMailSender mailSender;
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Value("${bugtracker.mail.digest.window:PT5M}")
+    private Duration digestWindow;
+
+    @Value("${bugtracker.mail.digest.urgent-priorities:HIGH,CRITICAL}")
+    private Set<String> urgentPriorities;
 
     public void sendMail(String to, String subject, String text) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
-        mailSender.send(message);
+        sendMail(to, subject, text, null, null, null);
+    }
+
+    public void sendMail(String to, String subject, String text, String priority) {
+        sendMail(to, subject, text, null, null, priority);
     }
 
     public void sendMail(String to, String subject, String text, String[] cc, String[] bcc) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
+        sendMail(to, subject, text, cc, bcc, null);
+    }
+
+    /**
+     * @param priority priority of the bug or task the mail is about; decides whether it may wait
+     *                 for a digest. {@code null} (no priority) is not urgent
+     */
+    @Transactional
+    public void sendMail(String to, String subject, String text, String[] cc, String[] bcc, String priority) {
+        Date now = new Date();
+        boolean digest = !digestWindow.isZero() && (priority == null || !urgentPriorities.contains(priority.toUpperCase()));
+        OutboxMessage message = new OutboxMessage();
+        message.setRecipient(to);
         message.setSubject(subject);
-        message.setText(text);
-        if (cc != null && cc.length > 0) message.setCc(cc);
-        if (bcc != null && bcc.length > 0) message.setBcc(bcc);
-        mailSender.send(message);
+        message.setBody(text);
+        if (cc != null && cc.length > 0) message.setCc(String.join(",", cc));
+        if (bcc != null && bcc.length > 0) message.setBcc(String.join(",", bcc));
+        message.setDigest(digest);
+        message.setCreatedAt(now);
+        message.setNextAttemptAt(digest ? new Date(now.getTime() + digestWindow.toMillis()) : now);
+        outboxMessageRepository.save(message);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a small dedicated pool instead of on request threads. Hashing is deliberately
+ * slow, so a burst of logins would otherwise occupy every Tomcat thread and the CPU with it.
+ * The pool's queue is bounded: once it is full, callers get a 429 straight away and at most
+ * {@code threads + queue-capacity} request threads are ever waiting on a hash.
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordHasher {
+
+    /**
+     * Outcome of a password check. {@code upgradedHash} is a new hash of the same password when
+     * the stored one was made with a lower work factor than the current one.
+     */
+    public record Verification(boolean matches, String upgradedHash) {}
+
+    public static class BusyException extends ResponseStatusException {
+
+        BusyException() {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Too many password checks in progress, try again shortly");
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return headers;
+        }
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${bugtracker.password.threads:2}")
+    private int threads;
+
+    @Value("${bugtracker.password.queue-capacity:16}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        rejected = meterRegistry.counter("bugtracker.password.rejected");
+        meterRegistry.gauge("bugtracker.password.queued", executor, pool -> pool.getQueue().size());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public Verification verify(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> {
+            if (encodedPassword == null || !passwordEncoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            String upgraded = passwordEncoder.upgradeEncoding(encodedPassword) ? passwordEncoder.encode(rawPassword) : null;
+            return new Verification(true, upgraded);
+        });
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
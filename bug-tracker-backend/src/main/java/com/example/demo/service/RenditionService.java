@@ -0,0 +1,214 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Produces downscaled JPEG renditions of stored images on a small background pool, so list
+ * views can fetch a thumbnail instead of the full-resolution upload. Renditions sit next to
+ * the original as {@code <sha256>.<size>.jpg} and are shared by every attachment with that
+ * content. The queue is bounded and a full queue drops the job: uploads never wait on it, and
+ * a missing rendition is simply requested again the next time it is served.
+ */
+@Service
+public class RenditionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenditionService.class);
+
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    private static final float JPEG_QUALITY = 0.8f;
+
+    public enum Size {
+        THUMB(160), SMALL(480), MEDIUM(1024);
+
+        private final int maxEdge;
+
+        Size(int maxEdge) {
+            this.maxEdge = maxEdge;
+        }
+
+        public static Optional<Size> parse(String value) {
+            return Arrays.stream(values())
+                    .filter(size -> size.name().equalsIgnoreCase(value))
+                    .findFirst();
+        }
+    }
+
+    @Value("${bugtracker.renditions.threads:2}")
+    private int threads;
+
+    @Value("${bugtracker.renditions.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    // Originals with a job queued or running, so repeated requests don't queue duplicates
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void start() {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "rendition-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public Path path(Path original, Size size) {
+        return original.resolveSibling(original.getFileName() + "." + size.name().toLowerCase(Locale.ROOT) + ".jpg");
+    }
+
+    /**
+     * Queues rendition of {@code original} unless all sizes already exist or a job is pending.
+     */
+    public void submit(Path original) {
+        if (Arrays.stream(Size.values()).allMatch(size -> Files.exists(path(original, size)))) return;
+        if (!pending.add(original)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    render(original);
+                } finally {
+                    pending.remove(original);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(original);
+            logger.debug("Rendition queue full, skipping {}", original.getFileName());
+        }
+    }
+
+    public void delete(Path original) throws IOException {
+        for (Size size : Size.values()) {
+            Files.deleteIfExists(path(original, size));
+        }
+    }
+
+    private void render(Path original) {
+        try {
+            BufferedImage image = read(original, Size.MEDIUM.maxEdge * 2);
+            if (image == null) return;
+            // Largest first, each size scaled from the previous one
+            Size[] sizes = Size.values();
+            Arrays.sort(sizes, Comparator.comparingInt((Size size) -> size.maxEdge).reversed());
+            for (Size size : sizes) {
+                image = scale(image, size.maxEdge);
+                write(image, path(original, size));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not render {}", original.getFileName(), e);
+        }
+    }
+
+    /**
+     * Decodes the image, subsampling rows and columns while reading so that a huge screenshot
+     * is never fully materialised when only {@code minEdge} pixels are needed.
+     */
+    private static BufferedImage read(Path file, int minEdge) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / minEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales to fit within {@code maxEdge}, halving repeatedly first so bilinear filtering keeps
+     * its quality, and flattens onto white since JPEG has no alpha channel.
+     */
+    private static BufferedImage scale(BufferedImage image, int maxEdge) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = scaled.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            image = scaled;
+        } while (width != targetWidth || height != targetHeight);
+        return image;
+    }
+
+    // Written to a temp file and moved into place so a half-written rendition is never served
+    private static void write(BufferedImage image, Path target) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), "rendition-", ".part");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
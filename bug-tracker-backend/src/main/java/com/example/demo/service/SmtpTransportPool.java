@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps up to {@code bugtracker.mail.smtp.pool-size} authenticated SMTP connections open, so
+ * the TLS handshake and login are paid once per connection rather than once per mail. Callers
+ * borrow a {@link Session}, send any number of messages over it and close it to hand the
+ * connection back. Connections idle for longer than {@code max-idle} are dropped before the
+ * server times them out, and a connection that turns out to be dead is reopened and the send
+ * retried once.
+ * <p>
+ * Per-message latency is published as the {@code bugtracker.mail.smtp.send} timer and new
+ * connections as {@code bugtracker.mail.smtp.connections}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SmtpTransportPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    private final JavaMailSenderImpl mailSender;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${bugtracker.mail.smtp.pool-size:4}")
+    private int poolSize;
+
+    @Value("${bugtracker.mail.smtp.max-idle:PT1M}")
+    private Duration maxIdle;
+
+    private record Idle(Transport transport, long since) {}
+
+    // Most recently used first, so the busiest connections stay warm and the rest age out
+    private final ConcurrentLinkedDeque<Idle> idle = new ConcurrentLinkedDeque<>();
+    private Semaphore permits;
+
+    @PostConstruct
+    void start() {
+        permits = new Semaphore(poolSize);
+    }
+
+    /**
+     * Borrows a connection, waiting while all of them are in use. Nothing is opened until the
+     * first message is sent.
+     */
+    public Session borrow() throws InterruptedException {
+        permits.acquire();
+        Idle pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.nanoTime() - pooled.since() < maxIdle.toNanos()) {
+                return new Session(pooled.transport());
+            }
+            close(pooled.transport());
+        }
+        return new Session(null);
+    }
+
+    public MimeMessage toMimeMessage(SimpleMailMessage message) {
+        MimeMessage mime = mailSender.createMimeMessage();
+        message.copyTo(new MimeMailMessage(mime));
+        return mime;
+    }
+
+    @PreDestroy
+    void closeAll() {
+        Idle pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            close(pooled.transport());
+        }
+    }
+
+    public class Session implements AutoCloseable {
+
+        private Transport transport;
+
+        private Session(Transport transport) {
+            this.transport = transport;
+        }
+
+        public void send(MimeMessage message) {
+            long start = System.nanoTime();
+            String outcome = "error";
+            try {
+                message.saveChanges();
+                boolean reused = transport != null;
+                try {
+                    connected().sendMessage(message, message.getAllRecipients());
+                } catch (MessagingException | IllegalStateException e) {
+                    if (!reused || e instanceof SendFailedException) throw e;
+                    // Most likely the server dropped the pooled connection; reconnect and try once more
+                    logger.debug("SMTP send over pooled connection failed, reconnecting", e);
+                    reset();
+                    connected().sendMessage(message, message.getAllRecipients());
+                }
+                outcome = "sent";
+            } catch (AuthenticationFailedException e) {
+                reset();
+                throw new MailAuthenticationException(e);
+            } catch (MessagingException e) {
+                reset();
+                throw new MailSendException(Map.of(message, e));
+            } finally {
+                Timer.builder("bugtracker.mail.smtp.send")
+                        .tag("outcome", outcome)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry)
+                        .record(Duration.ofNanos(System.nanoTime() - start));
+            }
+        }
+
+        // Hands the connection back; a failed send has already closed and dropped it
+        @Override
+        public void close() {
+            if (transport != null) {
+                idle.offerFirst(new Idle(transport, System.nanoTime()));
+                transport = null;
+            }
+            permits.release();
+        }
+
+        private Transport connected() throws MessagingException {
+            if (transport == null) {
+                Transport opened = mailSender.getSession().getTransport(mailSender.getProtocol());
+                opened.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+                meterRegistry.counter("bugtracker.mail.smtp.connections").increment();
+                transport = opened;
+            }
+            return transport;
+        }
+
+        private void reset() {
+            if (transport != null) SmtpTransportPool.close(transport);
+            transport = null;
+        }
+    }
+
+    private static void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Could not close SMTP connection", e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Revoked token and session ids, kept in the {@code revoked_token} table and mirrored in an
+ * in-memory Bloom filter. Every authenticated request is checked against the filter, so a token
+ * that was never revoked costs a few hash probes; only a match (a revoked id, or the configured
+ * false-positive rate of the rest) is confirmed with a query.
+ * <p>
+ * The filter is built from the table on startup and on every {@code rebuild-interval}, which
+ * also drops expired ids. In between, ids revoked here are added immediately and ids revoked
+ * by other instances are picked up every {@code sync-interval}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenDenylist {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    private static final String PURGE_JOB = "token-denylist-purge";
+
+    // Re-read rows revoked this long before the last sync, for commits that land late and clock skew
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JobLockService jobLockService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.denylist.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${app.jwt.denylist.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.jwt.denylist.rebuild-interval:PT6H}")
+    private Duration rebuildInterval;
+
+    private volatile BloomFilter filter;
+    private volatile Instant syncedAt;
+
+    private Counter misses;
+    private Counter falsePositives;
+    private Counter hits;
+
+    @PostConstruct
+    void init() {
+        misses = meterRegistry.counter("bugtracker.jwt.denylist", "result", "miss");
+        falsePositives = meterRegistry.counter("bugtracker.jwt.denylist", "result", "false-positive");
+        hits = meterRegistry.counter("bugtracker.jwt.denylist", "result", "revoked");
+        rebuild();
+    }
+
+    /**
+     * Revokes {@code id} until {@code expiresAt}, after which no token carrying it is accepted
+     * anyway. Returns false if it was already revoked.
+     */
+    public boolean revoke(String id, Date expiresAt) {
+        // Only two concurrent revocations of the same id race on the insert
+        if (revokedTokenRepository.existsById(id)) return false;
+        try {
+            revokedTokenRepository.create(id, expiresAt, new Date());
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        filter.put(id);
+        return true;
+    }
+
+    /**
+     * Whether any of {@code ids} has been revoked.
+     */
+    public boolean isRevoked(String... ids) {
+        BloomFilter current = filter;
+        List<String> candidates = new ArrayList<>(ids.length);
+        for (String id : ids) {
+            if (current.mightContain(id)) candidates.add(id);
+        }
+        if (candidates.isEmpty()) {
+            misses.increment();
+            return false;
+        }
+        boolean revoked = revokedTokenRepository.existsByIdInAndExpiresAtAfter(candidates, new Date());
+        (revoked ? hits : falsePositives).increment();
+        return revoked;
+    }
+
+    // sync and rebuild run on different scheduler threads; a sync overlapping a rebuild could
+    // otherwise add ids to the filter being replaced and then move syncedAt past them
+    @Scheduled(fixedDelayString = "${app.jwt.denylist.sync-interval:PT5S}")
+    public synchronized void sync() {
+        Instant start = Instant.now();
+        List<String> ids = revokedTokenRepository.findActiveIdsRevokedSince(
+                Date.from(syncedAt.minus(SYNC_OVERLAP)), Date.from(start));
+        BloomFilter current = filter;
+        ids.forEach(current::put);
+        syncedAt = start;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.denylist.rebuild-interval:PT6H}",
+               initialDelayString = "${app.jwt.denylist.rebuild-interval:PT6H}")
+    public synchronized void rebuild() {
+        if (filter != null && jobLockService.acquire(PURGE_JOB, rebuildInterval.dividedBy(2)).isPresent()) {
+            int purged = revokedTokenRepository.deleteExpired(new Date());
+            if (purged > 0) logger.info("Purged {} expired token revocations", purged);
+        }
+        Instant start = Instant.now();
+        List<String> ids = revokedTokenRepository.findActiveIds(Date.from(start));
+        // Room to grow until the next rebuild without the false-positive rate degrading
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, ids.size() * 2), falsePositiveRate);
+        ids.forEach(rebuilt::put);
+        filter = rebuilt;
+        // Ids revoked here while the table was being read went into the old filter
+        syncedAt = start;
+        sync();
+        logger.debug("Token denylist rebuilt with {} ids", ids.size());
+    }
+}
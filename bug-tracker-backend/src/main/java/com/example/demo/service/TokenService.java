@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Login sessions as pairs of a short-lived access token and a refresh token. Each refresh token
+ * is good for one exchange: using it revokes it and returns a new pair for the same session.
+ * Presenting an already used refresh token means it was copied, so the whole session is revoked
+ * and both holders have to log in again.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    public record Tokens(String accessToken, String refreshToken, String username, String role) {}
+
+    private final JwtUtil jwtUtil;
+    private final TokenDenylist tokenDenylist;
+    private final UserRepository userRepository;
+
+    public Tokens issue(String username, String role) {
+        return issue(username, role, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Rotates {@code refreshToken}. Empty if it is invalid, expired or revoked, or the account
+     * no longer exists.
+     */
+    public Optional<Tokens> refresh(String refreshToken) {
+        Claims claims = parse(refreshToken, JwtUtil.REFRESH);
+        if (claims == null) return Optional.empty();
+        String sessionId = claims.get(JwtUtil.SESSION_CLAIM, String.class);
+        if (tokenDenylist.isRevoked(sessionId)) return Optional.empty();
+
+        if (!tokenDenylist.revoke(claims.getId(), claims.getExpiration())) {
+            logger.warn("Refresh token reused for {}, revoking the session", claims.getSubject());
+            tokenDenylist.revoke(sessionId, jwtUtil.refreshExpiry());
+            return Optional.empty();
+        }
+        // The role is read again so that tokens pick up changes at the next refresh
+        String role = userRepository.findRoleByUsername(claims.getSubject());
+        if (role == null) return Optional.empty();
+        return Optional.of(issue(claims.getSubject(), role, sessionId));
+    }
+
+    /**
+     * Revokes the session of {@code token}, an access or refresh token. Returns false if the
+     * token is not valid.
+     */
+    public boolean logout(String token) {
+        Claims claims = parse(token, null);
+        if (claims == null) return false;
+        tokenDenylist.revoke(claims.get(JwtUtil.SESSION_CLAIM, String.class), jwtUtil.refreshExpiry());
+        return true;
+    }
+
+    private Tokens issue(String username, String role, String sessionId) {
+        return new Tokens(jwtUtil.generateToken(username, role, sessionId),
+                jwtUtil.generateRefreshToken(username, sessionId), username, role);
+    }
+
+    // Claims of a valid token with a session, of the given type unless that is null
+    private Claims parse(String token, String type) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parse(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.get(JwtUtil.SESSION_CLAIM, String.class) == null || claims.getId() == null) return null;
+        if (type != null && !type.equals(claims.get(JwtUtil.TYPE_CLAIM, String.class))) return null;
+        return claims;
+    }
+}
@@ -2,10 +2,15 @@ package com.example.demo.service;
 
 
 
+import com.example.demo.config.CacheConfig;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,16 +19,27 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class UserService implements UserDetailsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final CacheManager cacheManager;
+
+    // Request attribute holding the current user once a request has looked it up
+    private static final String CURRENT_USER = UserService.class.getName() + ".currentUser";
 
     @PostConstruct
     public void initAdminUser() {
@@ -40,17 +56,40 @@ public class UserService implements UserDetailsService {
     public User authenticate(String username, String password) {
         return userRepository.findByUsername(username)
                 .map(user -> {
-                    boolean match = passwordEncoder.matches(password, user.getPassword());
+                    PasswordHasher.Verification verification = passwordHasher.verify(password, user.getPassword());
                     System.out.println("Login attempt for: " + username);
-                    System.out.println("Password matches: " + match);
-                    return match ? user : null;
+                    logger.debug("Password matches for {}: {}", username, verification.matches());
+                    if (verification.upgradedHash() != null) {
+                        // Hashed with a lower work factor than the current one; only replaced if unchanged meanwhile
+                        userRepository.updatePassword(user.getId(), user.getPassword(), verification.upgradedHash());
+                        evict(user);
+                    }
+                    return verification.matches() ? user : null;
                 })
                 .orElse(null);
     }
+
+    public boolean passwordMatches(User user, String rawPassword) {
+        return passwordHasher.verify(rawPassword, user.getPassword()).matches();
+    }
     
     public void save(User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword())); // encode on save
+        user.setPassword(passwordHasher.encode(user.getPassword())); // encode on save
         userRepository.save(user);
+        evict(user);
+    }
+
+    /**
+     * Drops a user from the shared cache, the current request's memo and the role cache used by
+     * JwtFilter. Call it after changing a user other than through {@link #save}.
+     */
+    public void evict(User user) {
+        Cache users = cacheManager.getCache(CacheConfig.USERS);
+        if (user.getId() != null) users.evict(user.getId());
+        users.evict(user.getUsername());
+        cacheManager.getCache(CacheConfig.ACCOUNT_ROLES).evict(user.getUsername());
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) request.removeAttribute(CURRENT_USER, RequestAttributes.SCOPE_REQUEST);
     }
 
     public boolean existsByUsername(String username) {
@@ -76,15 +115,24 @@ public class UserService implements UserDetailsService {
 
         return List.of(new SimpleGrantedAuthority("ROLE_" + role));
     }
+    /**
+     * Cached lookups return a detached copy of the user. Its project collections are always
+     * empty; query ProjectRepository for memberships instead.
+     */
     public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username)
+        return cached(username, () -> userRepository.findByUsername(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
     public User getUserByUserId(Long id) {
-        return userRepository.findById(id)
+        return cached(id, () -> userRepository.findById(id))
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
     }
+    // Memoized for the rest of the request, so handlers and the services they call share one lookup
     public User getCurrentUser() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        User user = request != null ? (User) request.getAttribute(CURRENT_USER, RequestAttributes.SCOPE_REQUEST) : null;
+        if (user != null) return user;
+
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         String username;
 
@@ -94,7 +142,32 @@ public class UserService implements UserDetailsService {
             username = principal.toString(); // fallback
         }
 
-        return getUserByUsername(username);
+        user = getUserByUsername(username);
+        if (request != null) request.setAttribute(CURRENT_USER, user, RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+
+    // The cached entry is shared by both keys and never handed out, so callers may modify their copy
+    private Optional<User> cached(Object key, Supplier<Optional<User>> loader) {
+        Cache users = cacheManager.getCache(CacheConfig.USERS);
+        User user = users.get(key, User.class);
+        if (user == null) {
+            user = loader.get().map(UserService::copyOf).orElse(null);
+            if (user == null) return Optional.empty();
+            users.put(user.getId(), user);
+            users.put(user.getUsername(), user);
+        }
+        return Optional.of(copyOf(user));
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setRole(user.getRole());
+        return copy;
     }
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
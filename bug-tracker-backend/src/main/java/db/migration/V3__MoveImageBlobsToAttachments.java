@@ -0,0 +1,153 @@
+package db.migration;
+
+import com.example.demo.service.AttachmentFiles;
+import com.example.demo.service.AttachmentFiles.StagedFile;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the images that V1 kept in BLOB columns to the attachment store added by V2. Each image
+ * is written to {@code <upload dir>/attachments} like an upload, and the row's attachment id is
+ * set; identical images share one attachment. V4 then drops the BLOB columns.
+ * <p>
+ * The upload directory comes from the {@code upload-dir} placeholder, which application.properties
+ * sets to bugtracker.upload.dir.
+ */
+public class V3__MoveImageBlobsToAttachments extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V3__MoveImageBlobsToAttachments.class);
+
+    // table, BLOB column, attachment id column
+    private static final String[][] COLUMNS = {
+            {"bug", "tester_image_blob", "tester_image_id"},
+            {"bug", "original_tester_image_blob", "original_tester_image_id"},
+            {"bug_log", "image_blob", "image_id"},
+            {"tasks", "developer_image_blob", "developer_image_id"},
+            {"tasks", "original_developer_image_blob", "original_developer_image_id"},
+            {"task_logs", "image_blob", "image_id"},
+    };
+
+    // What AttachmentService assumes for images stored without a content type
+    private static final String CONTENT_TYPE = "image/jpeg";
+
+    private record ColumnType(int sqlType, String name) {}
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        String uploadDir = context.getConfiguration().getPlaceholders().getOrDefault("upload-dir", "uploads");
+        AttachmentFiles files = new AttachmentFiles(uploadDir);
+        Connection connection = context.getConnection();
+        for (String[] column : COLUMNS) {
+            migrate(connection, files, column[0], column[1], column[2]);
+        }
+    }
+
+    private void migrate(Connection connection, AttachmentFiles files, String table, String blobColumn, String idColumn)
+            throws Exception {
+        ColumnType type = columnType(connection, table, blobColumn);
+        // bytea columns stream directly; oid (PostgreSQL) and BLOB (H2) columns go through java.sql.Blob
+        boolean binary = type.sqlType() == Types.BINARY || type.sqlType() == Types.VARBINARY
+                || type.sqlType() == Types.LONGVARBINARY;
+
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id FROM " + table + " WHERE " + blobColumn + " IS NOT NULL");
+             ResultSet rs = select.executeQuery()) {
+            while (rs.next()) ids.add(rs.getLong(1));
+        }
+
+        // One row at a time, so only a single image is ever in flight
+        for (Long id : ids) {
+            StagedFile staged;
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT " + blobColumn + " FROM " + table + " WHERE id = ?")) {
+                select.setLong(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    try (InputStream in = binary ? rs.getBinaryStream(1) : rs.getBlob(1).getBinaryStream()) {
+                        staged = files.stage(in);
+                    }
+                }
+            }
+            try {
+                long attachmentId = attachmentFor(connection, staged);
+                files.publish(staged);
+                try (PreparedStatement update = connection.prepareStatement(
+                        "UPDATE " + table + " SET " + idColumn + " = ? WHERE id = ?")) {
+                    update.setLong(1, attachmentId);
+                    update.setLong(2, id);
+                    update.executeUpdate();
+                }
+            } finally {
+                Files.deleteIfExists(staged.tmp());
+            }
+        }
+
+        // Dropping an oid column leaves its large objects behind
+        if (type.name().equalsIgnoreCase("oid") && !ids.isEmpty()) {
+            try (Statement unlink = connection.createStatement()) {
+                unlink.execute("SELECT lo_unlink(" + blobColumn + ") FROM " + table + " WHERE " + blobColumn + " IS NOT NULL");
+            }
+        }
+        if (!ids.isEmpty()) {
+            logger.info("Moved {} images from {}.{} to the attachment store", ids.size(), table, blobColumn);
+        }
+    }
+
+    // Counts a reference to the attachment already holding these bytes, or inserts one with a single reference
+    private long attachmentFor(Connection connection, StagedFile staged) throws Exception {
+        try (PreparedStatement touch = connection.prepareStatement(
+                "UPDATE attachment SET ref_count = ref_count + 1 WHERE sha256 = ?")) {
+            touch.setString(1, staged.sha256());
+            if (touch.executeUpdate() == 1) {
+                try (PreparedStatement select = connection.prepareStatement("SELECT id FROM attachment WHERE sha256 = ?")) {
+                    select.setString(1, staged.sha256());
+                    try (ResultSet rs = select.executeQuery()) {
+                        rs.next();
+                        return rs.getLong(1);
+                    }
+                }
+            }
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO attachment (sha256, size_bytes, content_type, ref_count, created_at, last_stored_at) "
+                        + "VALUES (?, ?, ?, 1, ?, ?)", new String[] {"id"})) {
+            insert.setString(1, staged.sha256());
+            insert.setLong(2, staged.size());
+            insert.setString(3, CONTENT_TYPE);
+            insert.setTimestamp(4, now);
+            insert.setTimestamp(5, now);
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    // H2 reports unquoted names in upper case, PostgreSQL in lower case
+    private ColumnType columnType(Connection connection, String table, String column) throws Exception {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String[] name : new String[][] {{table, column}, {table.toUpperCase(), column.toUpperCase()}}) {
+            try (ResultSet rs = metaData.getColumns(null, null, name[0], name[1])) {
+                if (rs.next()) return new ColumnType(rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"));
+            }
+        }
+        throw new IllegalStateException("Column " + table + "." + column + " not found");
+    }
+}
@@ -0,0 +1,112 @@
+-- Schema as Hibernate's ddl-auto=update left it before migrations took over. Databases created
+-- that way are baselined at this version (spring.flyway.baseline-on-migrate), so this script
+-- only runs on an empty database, and every change since is a later migration.
+--
+-- Every script under db/migration runs unchanged on H2 and PostgreSQL: enum columns are
+-- varchar with a check, and the user table is always schema-qualified. USER is a reserved
+-- word; PostgreSQL accepts it after a schema name, H2 with NON_KEYWORDS=USER in its URL.
+--
+-- Images were @Lob byte[] columns. Hibernate created them as oid (large objects) on PostgreSQL
+-- and as BLOB on H2; they are bytea here, and V3 reads all three.
+
+CREATE TABLE public.user (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    username varchar(255),
+    email varchar(255) NOT NULL UNIQUE,
+    password varchar(255),
+    role varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE project (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    name varchar(255),
+    description varchar(255),
+    created_by bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_project_created_by FOREIGN KEY (created_by) REFERENCES public.user
+);
+
+CREATE TABLE project_developers (
+    project_id bigint NOT NULL,
+    developer_id bigint NOT NULL,
+    PRIMARY KEY (developer_id, project_id),
+    CONSTRAINT fk_project_developers_project FOREIGN KEY (project_id) REFERENCES project,
+    CONSTRAINT fk_project_developers_developer FOREIGN KEY (developer_id) REFERENCES public.user
+);
+
+CREATE TABLE project_testers (
+    project_id bigint NOT NULL,
+    testers_id bigint NOT NULL,
+    PRIMARY KEY (project_id, testers_id),
+    CONSTRAINT fk_project_testers_project FOREIGN KEY (project_id) REFERENCES project,
+    CONSTRAINT fk_project_testers_tester FOREIGN KEY (testers_id) REFERENCES public.user
+);
+
+-- Status and priority were free-form strings
+CREATE TABLE bug (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    title varchar(255),
+    description varchar(255),
+    priority varchar(255),
+    status varchar(255),
+    resolution varchar(255),
+    tester_image_blob bytea,
+    original_tester_image_blob bytea,
+    was_breached boolean NOT NULL,
+    created_by_id bigint,
+    assigned_to_id bigint,
+    project_id bigint,
+    created_at timestamp(6),
+    last_status_change timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_bug_created_by FOREIGN KEY (created_by_id) REFERENCES public.user,
+    CONSTRAINT fk_bug_assigned_to FOREIGN KEY (assigned_to_id) REFERENCES public.user,
+    CONSTRAINT fk_bug_project FOREIGN KEY (project_id) REFERENCES project
+);
+
+CREATE TABLE bug_log (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    bug_id bigint,
+    user_id bigint,
+    status varchar(255),
+    text varchar(255),
+    image_blob bytea,
+    timestamp timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_bug_log_bug FOREIGN KEY (bug_id) REFERENCES bug,
+    CONSTRAINT fk_bug_log_user FOREIGN KEY (user_id) REFERENCES public.user
+);
+
+CREATE TABLE tasks (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    title varchar(255) NOT NULL,
+    description text,
+    status varchar(255) NOT NULL CHECK (status IN ('UNASSIGNED', 'ASSIGNED', 'CLOSED')),
+    priority varchar(255) NOT NULL CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH', 'CRITICAL')),
+    project_id bigint NOT NULL,
+    created_by bigint NOT NULL,
+    assigned_to bigint,
+    created_at timestamp(6) NOT NULL,
+    assigned_at timestamp(6),
+    closed_at timestamp(6),
+    developer_image_blob bytea,
+    original_developer_image_blob bytea,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_tasks_project FOREIGN KEY (project_id) REFERENCES project,
+    CONSTRAINT fk_tasks_created_by FOREIGN KEY (created_by) REFERENCES public.user,
+    CONSTRAINT fk_tasks_assigned_to FOREIGN KEY (assigned_to) REFERENCES public.user
+);
+
+CREATE TABLE task_logs (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    task_id bigint NOT NULL,
+    user_id bigint NOT NULL,
+    status varchar(255) NOT NULL CHECK (status IN ('UNASSIGNED', 'ASSIGNED', 'CLOSED')),
+    text text,
+    image_blob bytea,
+    timestamp timestamp(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_task_logs_task FOREIGN KEY (task_id) REFERENCES tasks,
+    CONSTRAINT fk_task_logs_user FOREIGN KEY (user_id) REFERENCES public.user
+);
@@ -0,0 +1,20 @@
+-- Images move out of the row into files on disk, one per distinct content, named by SHA-256.
+-- Bugs, tasks and their logs refer to an attachment by id; ref_count is how many rows do.
+
+CREATE TABLE attachment (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    sha256 varchar(64) UNIQUE,
+    size_bytes bigint NOT NULL,
+    content_type varchar(255),
+    ref_count integer DEFAULT 0 NOT NULL,
+    created_at timestamp(6),
+    last_stored_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE bug ADD COLUMN tester_image_id bigint;
+ALTER TABLE bug ADD COLUMN original_tester_image_id bigint;
+ALTER TABLE bug_log ADD COLUMN image_id bigint;
+ALTER TABLE tasks ADD COLUMN developer_image_id bigint;
+ALTER TABLE tasks ADD COLUMN original_developer_image_id bigint;
+ALTER TABLE task_logs ADD COLUMN image_id bigint;
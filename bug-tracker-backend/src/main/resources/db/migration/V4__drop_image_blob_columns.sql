@@ -0,0 +1,8 @@
+-- V3 moved every image to the attachment store
+
+ALTER TABLE bug DROP COLUMN tester_image_blob;
+ALTER TABLE bug DROP COLUMN original_tester_image_blob;
+ALTER TABLE bug_log DROP COLUMN image_blob;
+ALTER TABLE tasks DROP COLUMN developer_image_blob;
+ALTER TABLE tasks DROP COLUMN original_developer_image_blob;
+ALTER TABLE task_logs DROP COLUMN image_blob;
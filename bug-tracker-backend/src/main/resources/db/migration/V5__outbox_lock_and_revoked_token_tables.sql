@@ -0,0 +1,34 @@
+-- Mail waiting to be sent (MailOutboxDispatcher)
+CREATE TABLE mail_outbox (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    recipient varchar(255) NOT NULL,
+    cc varchar(1000),
+    bcc varchar(1000),
+    subject varchar(500),
+    body varchar(10000),
+    digest boolean DEFAULT false NOT NULL,
+    status varchar(16) NOT NULL CHECK (status IN ('PENDING', 'SENT', 'DEAD')),
+    attempts integer NOT NULL,
+    next_attempt_at timestamp(6) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    sent_at timestamp(6),
+    last_error varchar(1000),
+    PRIMARY KEY (id)
+);
+
+-- Leases for scheduled jobs that only one instance may run at a time
+CREATE TABLE job_lock (
+    name varchar(64) NOT NULL,
+    owner varchar(100) NOT NULL,
+    locked_until timestamp(6) NOT NULL,
+    token bigint NOT NULL,
+    PRIMARY KEY (name)
+);
+
+-- Tokens revoked before they expire, shared between instances
+CREATE TABLE revoked_token (
+    id varchar(64) NOT NULL,
+    expires_at timestamp(6) NOT NULL,
+    revoked_at timestamp(6) NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,4 @@
+-- @Version columns for bugs and tasks; existing rows start at 0
+
+ALTER TABLE bug ADD COLUMN version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE tasks ADD COLUMN version bigint DEFAULT 0 NOT NULL;
@@ -0,0 +1,24 @@
+-- Bug status and priority become enums, stored by name, and bugs are ordered by a stored
+-- priority rank. The free-form values written before are brought to the enum names first.
+
+-- 'open', ' In progress' -> 'OPEN', 'IN_PROGRESS'. A bug without a status, or with one that
+-- names no status, could not be loaded any more, so it is reopened.
+UPDATE bug SET status = upper(replace(trim(status), ' ', '_'))
+    WHERE status IS NOT NULL;
+UPDATE bug SET status = 'OPEN'
+    WHERE status IS NULL OR status NOT IN ('OPEN', 'ASSIGNED', 'IN_PROGRESS', 'RESOLVED', 'CLOSED');
+ALTER TABLE bug ALTER COLUMN status SET NOT NULL;
+ALTER TABLE bug ADD CONSTRAINT bug_status_check
+    CHECK (status IN ('OPEN', 'ASSIGNED', 'IN_PROGRESS', 'RESOLVED', 'CLOSED'));
+
+-- A value that names no priority leaves the bug without one
+UPDATE bug SET priority = upper(trim(priority))
+    WHERE priority IS NOT NULL;
+UPDATE bug SET priority = NULL
+    WHERE priority NOT IN ('HIGH', 'MEDIUM', 'LOW');
+ALTER TABLE bug ADD CONSTRAINT bug_priority_check
+    CHECK (priority IN ('HIGH', 'MEDIUM', 'LOW'));
+
+-- Bug.BugPriority#rank, with UNRANKED (4) for bugs without a priority
+ALTER TABLE bug ADD COLUMN priority_rank integer DEFAULT 4 NOT NULL;
+UPDATE bug SET priority_rank = CASE priority WHEN 'HIGH' THEN 1 WHEN 'MEDIUM' THEN 2 WHEN 'LOW' THEN 3 ELSE 4 END;
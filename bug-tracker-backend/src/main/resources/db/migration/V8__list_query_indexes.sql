@@ -0,0 +1,19 @@
+-- Indexes for the paged and filtered lists: bugs and tasks by owner, bugs by project and status
+-- in priority order, logs by parent, and the mail and revoked-token pollers.
+
+-- Keyset pages of a user's bugs seek on (owner, id)
+CREATE INDEX idx_bug_assigned_to_id ON bug (assigned_to_id, id);
+CREATE INDEX idx_bug_created_by_id ON bug (created_by_id, id);
+-- Filtered lists: equality on project and status, then already in priority order
+CREATE INDEX idx_bug_project_status_rank ON bug (project_id, status, priority_rank, id);
+-- A developer's breached bugs, newest first
+CREATE INDEX idx_bug_assigned_to_breached ON bug (assigned_to_id, was_breached, id);
+CREATE INDEX idx_bug_log_bug_timestamp ON bug_log (bug_id, timestamp, id);
+CREATE INDEX idx_tasks_created_by_id ON tasks (created_by, id);
+CREATE INDEX idx_tasks_assigned_to_id ON tasks (assigned_to, id);
+CREATE INDEX idx_task_logs_task_timestamp ON task_logs (task_id, timestamp, id);
+-- The dispatcher polls for PENDING rows that are due, oldest first
+CREATE INDEX idx_mail_outbox_due ON mail_outbox (status, next_attempt_at, id);
+-- Incremental sync reads rows revoked since the last poll
+CREATE INDEX idx_revoked_token_revoked_at ON revoked_token (revoked_at);
+CREATE INDEX idx_revoked_token_expires_at ON revoked_token (expires_at);
@@ -0,0 +1,33 @@
+-- One index per repository query that had none, so that each is a range scan rather than a
+-- full scan. Queries not listed here are served by a primary key or an index from an earlier
+-- migration; IndexUsageTest runs EXPLAIN on all of them.
+
+-- findByUsername, findRoleByUsername (every authenticated request without a cached user)
+CREATE INDEX idx_user_username ON public.user (username);
+-- findByRole, findFirstByRoleOrderByIdAsc
+CREATE INDEX idx_user_role ON public.user (role, id);
+
+-- findByCreatedBy, findBugsByProjectCreator and the admin bug list, which join bugs to projects
+CREATE INDEX idx_project_created_by ON project (created_by, id);
+-- findByTesters_Id; project_developers is keyed by developer already
+CREATE INDEX idx_project_testers_tester ON project_testers (testers_id, project_id);
+-- Developers of a project (findByIdWithUsers, Project.developers)
+CREATE INDEX idx_project_developers_project ON project_developers (project_id, developer_id);
+
+-- findByStatus, findByStatusOrderByPriorityRankAscIdAsc
+CREATE INDEX idx_bug_status_rank ON bug (status, priority_rank, id);
+-- findByPriorityOrderByIdAsc
+CREATE INDEX idx_bug_priority ON bug (priority, id);
+-- findByWasBreachedTrue, and findSlaClocks reading open bugs that have not breached yet
+CREATE INDEX idx_bug_sla ON bug (was_breached, status, last_status_change);
+
+-- findByProjectId, findByProjectIdAndStatus
+CREATE INDEX idx_tasks_project_status ON tasks (project_id, status, id);
+-- findByStatus
+CREATE INDEX idx_tasks_status ON tasks (status, id);
+
+-- findUnreferencedSince: the sweep looks for attachments nothing refers to
+CREATE INDEX idx_attachment_ref_count ON attachment (ref_count);
+
+-- A due digest message pulls in everything pending for the same recipient
+CREATE INDEX idx_mail_outbox_recipient ON mail_outbox (recipient, status, id);
@@ -0,0 +1,134 @@
+package com.example.demo;
+
+import com.example.demo.model.Bug.BugPriority;
+import com.example.demo.model.Bug.BugStatus;
+import com.example.demo.model.Task.TaskStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows in the proportions of a tracker that has been in use for a while, for tests that look at
+ * how queries scale: 300 users, 20 projects with 5 developers and 5 testers each, 4000 bugs
+ * (mostly closed) with 3 logs apiece, 2000 tasks with 3 logs apiece, attachments, sent mail and
+ * revoked tokens. Inserted with plain SQL, so nothing is left in a persistence context or cache.
+ */
+public final class SeedData {
+
+    public static final int PROJECTS = 20;
+    public static final int BUGS = 4000;
+    public static final int TASKS = 2000;
+
+    /** Ids of the inserted rows, in insertion order. Project i has developers 5i..5i+4 and testers 5i..5i+4. */
+    public record Ids(List<Long> admins, List<Long> testers, List<Long> developers,
+                      List<Long> projects, List<Long> bugs, List<Long> tasks) {}
+
+    private SeedData() {
+    }
+
+    public static Ids insert(JdbcTemplate jdbc) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Timestamp hourAgo = new Timestamp(now.getTime() - 3_600_000);
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String role = i % 30 == 0 ? "ADMIN" : i % 2 == 0 ? "TESTER" : "DEVELOPER";
+            users.add(new Object[] {"seed" + i, "seed" + i + "@example.com", "x", role});
+        }
+        jdbc.batchUpdate("INSERT INTO public.user (username, email, password, role) VALUES (?, ?, ?, ?)", users);
+        List<Long> admins = ids(jdbc, "SELECT id FROM public.user WHERE role = 'ADMIN' ORDER BY id");
+        List<Long> testers = ids(jdbc, "SELECT id FROM public.user WHERE role = 'TESTER' ORDER BY id");
+        List<Long> developers = ids(jdbc, "SELECT id FROM public.user WHERE role = 'DEVELOPER' ORDER BY id");
+
+        List<Object[]> projects = new ArrayList<>();
+        for (int i = 0; i < PROJECTS; i++) {
+            projects.add(new Object[] {"Project " + i, admins.get(i % admins.size())});
+        }
+        jdbc.batchUpdate("INSERT INTO project (name, created_by) VALUES (?, ?)", projects);
+        List<Long> projectIds = ids(jdbc, "SELECT id FROM project ORDER BY id");
+        List<Object[]> projectDevelopers = new ArrayList<>();
+        List<Object[]> projectTesters = new ArrayList<>();
+        for (int i = 0; i < projectIds.size(); i++) {
+            for (int j = 0; j < 5; j++) {
+                projectDevelopers.add(new Object[] {projectIds.get(i), member(developers, i, j)});
+                projectTesters.add(new Object[] {projectIds.get(i), member(testers, i, j)});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO project_developers (project_id, developer_id) VALUES (?, ?)", projectDevelopers);
+        jdbc.batchUpdate("INSERT INTO project_testers (project_id, testers_id) VALUES (?, ?)", projectTesters);
+
+        List<Object[]> attachments = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            attachments.add(new Object[] {String.format("%064x", i), 100, "image/png", i % 50 == 0 ? 0 : 1, hourAgo});
+        }
+        jdbc.batchUpdate("INSERT INTO attachment (sha256, size_bytes, content_type, ref_count, created_at) " +
+                "VALUES (?, ?, ?, ?, ?)", attachments);
+
+        // Bugs and tasks are spread over the projects and stay among each project's members. Most are
+        // closed and kept their SLA, as in a tracker that has been in use for a while.
+        List<Object[]> bugs = new ArrayList<>();
+        for (int i = 0; i < BUGS; i++) {
+            int project = i % PROJECTS, n = i / PROJECTS;
+            BugStatus status = n % 10 == 0 ? BugStatus.values()[n / 10 % 4] : BugStatus.CLOSED;
+            BugPriority priority = BugPriority.values()[i % 3];
+            bugs.add(new Object[] {"Bug " + i, priority.name(), priority.rank(), status.name(), n % 20 == 1,
+                    member(testers, project, n),
+                    status == BugStatus.OPEN ? null : member(developers, project, n / 5),
+                    projectIds.get(project), hourAgo, hourAgo});
+        }
+        jdbc.batchUpdate("INSERT INTO bug (title, priority, priority_rank, status, was_breached, created_by_id, " +
+                "assigned_to_id, project_id, created_at, last_status_change) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", bugs);
+        List<Long> bugIds = ids(jdbc, "SELECT id FROM bug ORDER BY id");
+        List<Object[]> bugLogs = new ArrayList<>();
+        for (int i = 0; i < BUGS * 3; i++) {
+            bugLogs.add(new Object[] {bugIds.get(i % BUGS), testers.get(i % testers.size()), "OPEN", "log " + i, hourAgo});
+        }
+        jdbc.batchUpdate("INSERT INTO bug_log (bug_id, user_id, status, text, timestamp) VALUES (?, ?, ?, ?, ?)", bugLogs);
+
+        List<Object[]> tasks = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            int project = i % PROJECTS, n = i / PROJECTS;
+            TaskStatus status = n % 10 == 0 ? TaskStatus.values()[n / 10 % 2] : TaskStatus.CLOSED;
+            tasks.add(new Object[] {"Task " + i, status.name(), "MEDIUM", projectIds.get(project),
+                    member(developers, project, n),
+                    status == TaskStatus.UNASSIGNED ? null : member(testers, project, n / 5), hourAgo});
+        }
+        jdbc.batchUpdate("INSERT INTO tasks (title, status, priority, project_id, created_by, assigned_to, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", tasks);
+        List<Long> taskIds = ids(jdbc, "SELECT id FROM tasks ORDER BY id");
+        List<Object[]> taskLogs = new ArrayList<>();
+        for (int i = 0; i < TASKS * 3; i++) {
+            taskLogs.add(new Object[] {taskIds.get(i % TASKS), developers.get(i % developers.size()), "ASSIGNED", hourAgo});
+        }
+        jdbc.batchUpdate("INSERT INTO task_logs (task_id, user_id, status, timestamp) VALUES (?, ?, ?, ?)", taskLogs);
+
+        List<Object[]> outbox = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            outbox.add(new Object[] {"user" + i % 300 + "@example.com", i % 3 == 0, "SENT", 1, hourAgo, hourAgo});
+        }
+        jdbc.batchUpdate("INSERT INTO mail_outbox (recipient, digest, status, attempts, next_attempt_at, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", outbox);
+
+        // Revoked tokens are deleted some time after they expire; most still in the table have expired
+        List<Object[]> revoked = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Timestamp expires = new Timestamp(now.getTime() + (i % 20 == 0 ? 1 : -1) * 60_000L * (i + 1));
+            revoked.add(new Object[] {"jti-" + i, expires, new Timestamp(expires.getTime() - 900_000)});
+        }
+        jdbc.batchUpdate("INSERT INTO revoked_token (id, expires_at, revoked_at) VALUES (?, ?, ?)", revoked);
+
+        // Fresh statistics, so that plans are made for these volumes
+        jdbc.execute("ANALYZE");
+        return new Ids(admins, testers, developers, projectIds, bugIds, taskIds);
+    }
+
+    // The k-th (mod 5) developer or tester of a project
+    private static Long member(List<Long> users, int project, int k) {
+        return users.get((project * 5 + k % 5) % users.size());
+    }
+
+    private static List<Long> ids(JdbcTemplate jdbc, String sql) {
+        return jdbc.queryForList(sql, Long.class);
+    }
+}
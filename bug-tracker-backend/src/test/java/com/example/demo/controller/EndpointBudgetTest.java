@@ -0,0 +1,343 @@
+package com.example.demo.controller;
+
+import com.example.demo.SeedData;
+import com.example.demo.service.TokenService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.SoftAssertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Calls every REST endpoint against {@link SeedData} and holds each to the query budget recorded in
+ * {@code endpoint-budgets.properties}: SQL statements, entity loads and collection fetches, as
+ * counted by Hibernate statistics. Reads are measured after a warm-up call, i.e. with the current
+ * user cached as on a busy instance; writes run once, in the order a bug and a task go through
+ * their life cycle.
+ *
+ * <p>Measurements, with wall time, are written to {@code target/endpoint-budgets.properties}. When
+ * a change is meant to alter the counts, copy the affected lines from there into the budget file.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        // Own database, seeded for this class
+        "spring.datasource.url=jdbc:h2:mem:budgets;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Statistics are global: scheduled jobs run once at startup and then keep out of the counts
+        "bugtracker.mail.outbox.poll-interval=PT1H",
+        "bugtracker.sla.check-interval=PT1H",
+        "bugtracker.sla.reload-interval=PT1H",
+        "bugtracker.attachments.sweep-interval=PT1H",
+        "app.jwt.denylist.sync-interval=PT1H",
+        "bugtracker.upload.dir=target/endpoint-budget-uploads",
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointBudgetTest {
+
+    private static final String BUDGETS = "endpoint-budgets.properties";
+    private static final Path REPORT = Path.of("target", BUDGETS);
+    private static final int WARM_RUNS = 3;
+    private static final String PAGE = "50";
+
+    record Measurement(long statements, long entityLoads, long collectionFetches, long millis) {
+
+        static Measurement parse(String value) {
+            String[] parts = value.split(",");
+            return new Measurement(Long.parseLong(parts[0].trim()), Long.parseLong(parts[1].trim()),
+                    Long.parseLong(parts[2].trim()), 0);
+        }
+
+        String format() {
+            return statements + ", " + entityLoads + ", " + collectionFetches;
+        }
+    }
+
+    /** An endpoint call; reads are repeated, writes change state and run once. */
+    private record Call(String name, boolean read, Supplier<MockHttpServletRequestBuilder> request) {}
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TokenService tokenService;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final Properties budgets = new Properties();
+    private final Map<String, Measurement> measured = new LinkedHashMap<>();
+    private Statistics statistics;
+
+    private Long project;
+    private Long otherDeveloper;
+    private Long seededBug;
+    private Long seededTask;
+    private Long tester;
+    private Long developer;
+    private Long developer2;
+    private String adminToken;
+    private String testerToken;
+    private String developerToken;
+    private String developer2Token;
+
+    // Set by earlier calls for later ones
+    private String refreshToken;
+    private String newUserToken;
+    private Long newProject;
+    private Long bug;
+    private Long task;
+
+    @BeforeAll
+    void seed() throws IOException {
+        try (InputStream in = new ClassPathResource(BUDGETS).getInputStream()) {
+            budgets.load(in);
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        SeedData.Ids ids = SeedData.insert(jdbcTemplate);
+        project = ids.projects().get(0);
+        tester = ids.testers().get(0);
+        developer = ids.developers().get(0);
+        developer2 = ids.developers().get(1);
+        // Not on the first project
+        otherDeveloper = ids.developers().get(5);
+        seededBug = ids.bugs().get(0);
+        seededTask = ids.tasks().get(0);
+        adminToken = token(ids.admins().get(0));
+        testerToken = token(tester);
+        developerToken = token(developer);
+        developer2Token = token(developer2);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> endpointsStayWithinTheirQueryBudget() {
+        List<Call> calls = new ArrayList<>();
+
+        calls.add(read("auth.users", () -> get("/api/auth/users").param("role", "DEVELOPER").with(bearer(adminToken))));
+        calls.add(read("projects.list", () -> get("/api/projects").with(bearer(adminToken))));
+        calls.add(read("projects.users", () -> get("/api/projects/{id}/users", project).with(bearer(adminToken))));
+        calls.add(read("projects.developers", () -> get("/api/projects/{id}/developers", project).with(bearer(adminToken))));
+        calls.add(read("projects.assigned.developer", () -> get("/api/projects/assigned").with(bearer(developerToken))));
+        calls.add(read("projects.assigned.tester", () -> get("/api/projects/assigned").with(bearer(testerToken))));
+
+        calls.add(read("bugs.list.admin", () -> get("/api/bugs").param("limit", PAGE).with(bearer(adminToken))));
+        calls.add(read("bugs.list.tester", () -> get("/api/bugs").param("limit", PAGE).with(bearer(testerToken))));
+        calls.add(read("bugs.list.developer", () -> get("/api/bugs").param("limit", PAGE).with(bearer(developerToken))));
+        calls.add(read("bugs.list.breached",
+                () -> get("/api/bugs").param("breached", "true").param("limit", PAGE).with(bearer(developerToken))));
+        calls.add(read("bugs.assigned", () -> get("/api/bugs/assigned").param("limit", PAGE).with(bearer(developerToken))));
+        calls.add(read("bugs.filter", () -> get("/api/bugs/filter").param("status", "OPEN")
+                .param("projectId", project.toString()).param("size", PAGE).with(bearer(adminToken))));
+        calls.add(read("bugs.logs", () -> get("/api/bugs/{id}/logs", seededBug).param("limit", PAGE).with(bearer(testerToken))));
+
+        calls.add(read("tasks.list", () -> get("/api/tasks").param("limit", PAGE).with(bearer(adminToken))));
+        calls.add(read("tasks.created", () -> get("/api/tasks/created").param("limit", PAGE).with(bearer(developerToken))));
+        calls.add(read("tasks.assigned", () -> get("/api/tasks/assigned").param("limit", PAGE).with(bearer(testerToken))));
+        calls.add(read("tasks.logs", () -> get("/api/tasks/{id}/logs", seededTask).param("limit", PAGE).with(bearer(developerToken))));
+        calls.add(read("tasks.project-testers", () -> get("/api/tasks/project/{id}/testers", project).with(bearer(adminToken))));
+
+        calls.add(write("auth.login", () -> post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"username\":\"admin\",\"password\":\"admin123\"}")));
+        calls.add(write("auth.refresh", () -> post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"refreshToken\":\"" + refreshToken + "\"}")));
+        calls.add(write("auth.register", () -> post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"budget\",\"email\":\"budget@example.com\",\"password\":\"pw\",\"role\":\"TESTER\"}")));
+        calls.add(write("user.change-password", () -> post("/api/user/change-password").with(bearer(newUserToken))
+                .contentType(MediaType.APPLICATION_JSON).content("{\"oldPassword\":\"pw\",\"newPassword\":\"pw2\"}")));
+        calls.add(write("auth.logout", () -> post("/api/auth/logout").with(bearer(newUserToken))));
+
+        calls.add(write("projects.create", () -> post("/api/projects").with(bearer(adminToken))
+                .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Budget\",\"description\":\"d\"}")));
+        calls.add(write("projects.assign", () -> put("/api/projects/{id}/assign", newProject)
+                .param("userId", otherDeveloper.toString()).param("role", "DEVELOPER").with(bearer(adminToken))));
+        calls.add(write("projects.unassign", () -> put("/api/projects/{id}/unassign", newProject)
+                .param("userId", otherDeveloper.toString()).param("role", "DEVELOPER").with(bearer(adminToken))));
+
+        calls.add(write("bugs.create", () -> multipart("/api/bugs")
+                .file(json("bug", "{\"title\":\"Budget\",\"description\":\"d\",\"priority\":\"HIGH\",\"project\":{\"id\":" + project + "}}"))
+                .file(image()).with(bearer(testerToken))));
+        calls.add(read("bugs.image", () -> get("/api/bugs/{id}/image", bug)));
+        calls.add(read("bugs.original-image", () -> get("/api/bugs/{id}/original-image", bug)));
+        calls.add(read("bugs.logs.image", () -> get("/api/bugs/logs/{id}/image", imageLog("bug_log", "bug_id", bug))));
+        calls.add(write("bugs.assign", () -> put("/api/bugs/{id}/assign/{developer}", bug, developer).with(bearer(adminToken))));
+        calls.add(write("bugs.status", () -> multipart(HttpMethod.PUT, "/api/bugs/{id}/status", bug)
+                .file(text("status", "IN_PROGRESS")).with(bearer(developerToken))));
+        calls.add(write("bugs.log", () -> multipart("/api/bugs/{id}/log", bug)
+                .file(text("text", "Looking into it")).file(image()).with(bearer(developerToken))));
+        calls.add(write("bugs.status.resolve", () -> multipart(HttpMethod.PUT, "/api/bugs/{id}/status", bug)
+                .file(text("status", "RESOLVED")).file(text("resolution", "Fixed")).with(bearer(developerToken))));
+        calls.add(write("bugs.reopen", () -> multipart("/api/bugs/{id}/reopen", bug)
+                .file(text("text", "Still happens")).with(bearer(testerToken))));
+        calls.add(write("bugs.status.resolve-reopened", () -> multipart(HttpMethod.PUT, "/api/bugs/{id}/status", bug)
+                .file(text("status", "RESOLVED")).file(text("resolution", "Fixed again")).with(bearer(developerToken))));
+        calls.add(write("bugs.reassign-by-tester", () -> multipart("/api/bugs/{id}/reassign-by-tester", bug)
+                .file(json("developerId", developer2.toString())).file(text("text", "Please double-check")).with(bearer(testerToken))));
+        calls.add(write("bugs.status.resolve-reassigned", () -> multipart(HttpMethod.PUT, "/api/bugs/{id}/status", bug)
+                .file(text("status", "RESOLVED")).file(text("resolution", "Checked")).with(bearer(developer2Token))));
+        calls.add(write("bugs.close-by-tester", () -> multipart("/api/bugs/{id}/close-by-tester", bug)
+                .file(text("text", "Verified")).with(bearer(testerToken))));
+
+        calls.add(write("tasks.create", () -> multipart("/api/tasks").file(image())
+                .param("title", "Budget").param("description", "d").param("priority", "LOW")
+                .param("projectId", project.toString()).with(bearer(developerToken))));
+        calls.add(read("tasks.image", () -> get("/api/tasks/{id}/image", task)));
+        calls.add(read("tasks.original-image", () -> get("/api/tasks/{id}/original-image", task)));
+        calls.add(read("tasks.logs.image", () -> get("/api/tasks/logs/{id}/image", imageLog("task_logs", "task_id", task))));
+        calls.add(write("tasks.assign", () -> put("/api/tasks/{id}/assign/{tester}", task, tester).with(bearer(adminToken))));
+        calls.add(write("tasks.close-by-tester", () -> multipart("/api/tasks/{id}/close-by-tester", task)
+                .param("comment", "Done").with(bearer(testerToken))));
+
+        return calls.stream().map(call -> DynamicTest.dynamicTest(call.name(), () -> check(call)));
+    }
+
+    @AfterAll
+    void writeReport() throws IOException {
+        Files.createDirectories(REPORT.getParent());
+        try (Writer out = Files.newBufferedWriter(REPORT, StandardCharsets.UTF_8)) {
+            out.write("# Measured by EndpointBudgetTest: statements, entity loads, collection fetches  # wall time\n");
+            for (Map.Entry<String, Measurement> entry : measured.entrySet()) {
+                out.write(entry.getKey() + " = " + entry.getValue().format() + "  # " + entry.getValue().millis() + " ms\n");
+            }
+        }
+    }
+
+    private void check(Call call) throws Exception {
+        Measurement actual = measure(call);
+        measured.put(call.name(), actual);
+
+        String recorded = budgets.getProperty(call.name());
+        if (recorded == null) {
+            throw new AssertionError("No budget recorded for " + call.name() + " in " + BUDGETS
+                    + "; measured " + actual.format());
+        }
+        Measurement budget = Measurement.parse(recorded);
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(actual.statements()).as(call.name() + " statements").isLessThanOrEqualTo(budget.statements());
+        softly.assertThat(actual.entityLoads()).as(call.name() + " entity loads").isLessThanOrEqualTo(budget.entityLoads());
+        softly.assertThat(actual.collectionFetches()).as(call.name() + " collection fetches")
+                .isLessThanOrEqualTo(budget.collectionFetches());
+        softly.assertAll();
+    }
+
+    private Measurement measure(Call call) throws Exception {
+        if (call.read()) {
+            perform(call);
+        }
+        Measurement best = null;
+        for (int run = 0; run < (call.read() ? WARM_RUNS : 1); run++) {
+            statistics.clear();
+            long start = System.nanoTime();
+            MvcResult result = perform(call);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            Measurement measurement = new Measurement(statistics.getPrepareStatementCount(),
+                    statistics.getEntityLoadCount(), statistics.getCollectionFetchCount(), millis);
+            if (best == null || measurement.millis() < best.millis()) best = measurement;
+            if (!call.read()) remember(call.name(), result);
+        }
+        return best;
+    }
+
+    private MvcResult perform(Call call) throws Exception {
+        MvcResult result = mockMvc.perform(call.request().get()).andReturn();
+        int status = result.getResponse().getStatus();
+        if (status >= 300) {
+            throw new AssertionError(call.name() + " answered " + status + ": " + result.getResponse().getContentAsString());
+        }
+        return result;
+    }
+
+    // Picks up what later calls need from a write's response
+    private void remember(String name, MvcResult result) throws Exception {
+        switch (name) {
+            case "auth.login" -> refreshToken = body(result).get("refreshToken").asText();
+            case "auth.register" -> newUserToken = tokenService.issue("budget", "TESTER").accessToken();
+            case "projects.create" -> newProject = body(result).get("id").asLong();
+            case "bugs.create" -> bug = body(result).get("id").asLong();
+            case "tasks.create" -> task = body(result).get("id").asLong();
+            default -> { }
+        }
+    }
+
+    private JsonNode body(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private Long imageLog(String table, String column, Long owner) {
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + table + " WHERE " + column + " = ? AND image_id IS NOT NULL",
+                Long.class, owner);
+    }
+
+    private String token(Long userId) {
+        Map<String, Object> user = jdbcTemplate.queryForMap("SELECT username, role FROM public.user WHERE id = ?", userId);
+        return tokenService.issue((String) user.get("username"), (String) user.get("role")).accessToken();
+    }
+
+    private static Call read(String name, Supplier<MockHttpServletRequestBuilder> request) {
+        return new Call(name, true, request);
+    }
+
+    private static Call write(String name, Supplier<MockHttpServletRequestBuilder> request) {
+        return new Call(name, false, request);
+    }
+
+    // Evaluated when the request is built, after earlier calls have set the token
+    private static RequestPostProcessor bearer(String token) {
+        return request -> {
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            return request;
+        };
+    }
+
+    private static MockMultipartFile json(String name, String content) {
+        return new MockMultipartFile(name, "", MediaType.APPLICATION_JSON_VALUE, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MockMultipartFile text(String name, String content) {
+        return new MockMultipartFile(name, "", MediaType.TEXT_PLAIN_VALUE, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A different image each time, so that no upload is deduplicated against an earlier one
+    private static MockMultipartFile image() {
+        byte[] bytes = new byte[20_000];
+        new Random().nextBytes(bytes);
+        return new MockMultipartFile("image", "screenshot.png", MediaType.IMAGE_PNG_VALUE, bytes);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.AttachmentService;
+import com.example.demo.service.MailService;
+import com.example.demo.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        // Own database: the rows inserted here would get in the way of other tests
+        "spring.datasource.url=jdbc:h2:mem:tasks;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+})
+@AutoConfigureMockMvc
+class TaskControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TokenService tokenService;
+
+    @MockitoBean private AttachmentService attachmentService;
+    @MockitoBean private MailService mailService;
+
+    private Long task;
+
+    @BeforeEach
+    void insertAssignedTask() {
+        jdbcTemplate.update("DELETE FROM task_logs");
+        jdbcTemplate.update("DELETE FROM tasks");
+        jdbcTemplate.update("MERGE INTO public.user (id, username, email, password, role) KEY (id) "
+                + "VALUES (1, 'tess', 'tess@example.com', 'x', 'TESTER'), (2, 'dave', 'dave@example.com', 'x', 'DEVELOPER')");
+        jdbcTemplate.update("MERGE INTO project (id, name, created_by) KEY (id) VALUES (1, 'Tracker', 2)");
+        jdbcTemplate.update("INSERT INTO tasks (title, status, priority, project_id, created_by, assigned_to, created_at) "
+                + "VALUES ('Fix it', 'ASSIGNED', 'HIGH', 1, 2, 1, ?)", new Timestamp(System.currentTimeMillis()));
+        task = jdbcTemplate.queryForObject("SELECT id FROM tasks", Long.class);
+    }
+
+    /**
+     * Closing stores the image, changes the status, logs and notifies in one transaction; when a
+     * step fails the request answers 500 and none of it is kept.
+     */
+    @Test
+    void failedUploadLeavesTaskUnchanged() throws Exception {
+        when(attachmentService.store(any(MultipartFile.class))).thenThrow(new IOException("disk full"));
+
+        close().andExpect(status().isInternalServerError());
+
+        assertTaskUnchanged();
+    }
+
+    @Test
+    void failedNotificationLeavesTaskUnchanged() throws Exception {
+        doThrow(new IllegalStateException("outbox unavailable")).when(mailService)
+                .sendMail(anyString(), anyString(), anyString(), any(), any(), any());
+
+        close().andExpect(status().isInternalServerError());
+
+        assertTaskUnchanged();
+    }
+
+    private ResultActions close() throws Exception {
+        return mockMvc.perform(multipart("/api/tasks/{id}/close-by-tester", task)
+                .file(new MockMultipartFile("image", "shot.png", "image/png", new byte[] {1, 2, 3}))
+                .param("comment", "Works now")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.issue("tess", "TESTER").accessToken()));
+    }
+
+    private void assertTaskUnchanged() {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT status, version, closed_at FROM tasks WHERE id = ?", task);
+        assertThat(row).containsEntry("STATUS", "ASSIGNED").containsEntry("VERSION", 0L).containsEntry("CLOSED_AT", null);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM task_logs", Integer.class)).isZero();
+    }
+}
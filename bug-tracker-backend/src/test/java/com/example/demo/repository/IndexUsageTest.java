@@ -0,0 +1,284 @@
+package com.example.demo.repository;
+
+import com.example.demo.SeedData;
+import com.example.demo.model.Bug;
+import com.example.demo.model.Bug.BugPriority;
+import com.example.demo.model.Bug.BugStatus;
+import com.example.demo.model.OutboxMessage;
+import com.example.demo.model.Project;
+import com.example.demo.model.Task;
+import com.example.demo.model.Task.TaskStatus;
+import com.example.demo.model.User;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every read query the repositories issue against a seeded database and fails if the plan
+ * of any of them scans a whole table. The statements are captured with their bind parameters and
+ * explained as they were sent, so the plan is the one the database actually chooses.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        // Own database: the seeded rows would get in the way of other tests
+        "spring.datasource.url=jdbc:h2:mem:explain;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndexUsageTest {
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        static QueryRecorder queryRecorder() {
+            return new QueryRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSource(QueryRecorder recorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                            ? ProxyDataSourceBuilder.create(dataSource).listener(recorder).build()
+                            : bean;
+                }
+            };
+        }
+    }
+
+    /** Statements run on the test thread while recording; scheduled jobs are left out. */
+    static class QueryRecorder implements QueryExecutionListener {
+
+        private final List<QueryInfo> queries = new ArrayList<>();
+        private volatile Thread recording;
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (Thread.currentThread() == recording) queries.addAll(queryInfoList);
+        }
+
+        List<QueryInfo> record(Runnable action) {
+            queries.clear();
+            recording = Thread.currentThread();
+            try {
+                action.run();
+            } finally {
+                recording = null;
+            }
+            return new ArrayList<>(queries);
+        }
+    }
+
+    @Autowired private QueryRecorder recorder;
+    @Autowired private DataSource dataSource;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ProjectRepository projectRepository;
+    @Autowired private BugRepository bugRepository;
+    @Autowired private BugLogRepository bugLogRepository;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private TaskLogRepository taskLogRepository;
+    @Autowired private AttachmentRepository attachmentRepository;
+    @Autowired private OutboxMessageRepository outboxMessageRepository;
+    @Autowired private RevokedTokenRepository revokedTokenRepository;
+
+    private User admin;
+    private User tester;
+    private User developer;
+    private Project project;
+    private Bug bug;
+    private Task task;
+
+    @BeforeAll
+    void seed() {
+        SeedData.Ids ids = SeedData.insert(jdbcTemplate);
+        admin = userRepository.findById(ids.admins().get(0)).orElseThrow();
+        tester = userRepository.findById(ids.testers().get(0)).orElseThrow();
+        developer = userRepository.findById(ids.developers().get(0)).orElseThrow();
+        project = projectRepository.findById(ids.projects().get(0)).orElseThrow();
+        bug = bugRepository.findById(ids.bugs().get(SeedData.BUGS / 2)).orElseThrow();
+        task = taskRepository.findById(ids.tasks().get(SeedData.TASKS / 2)).orElseThrow();
+    }
+
+    @Test
+    void everyRepositoryQueryUsesAnIndex() {
+        Date now = new Date();
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+
+        calls.put("UserRepository.findByUsername", () -> userRepository.findByUsername("seed17"));
+        calls.put("UserRepository.findRoleByUsername", () -> userRepository.findRoleByUsername("seed17"));
+        calls.put("UserRepository.findByRole", () -> userRepository.findByRole("ADMIN"));
+        calls.put("UserRepository.findSummaries", () -> userRepository.findSummaries("DEVELOPER"));
+        calls.put("UserRepository.findFirstByRoleOrderByIdAsc", () -> userRepository.findFirstByRoleOrderByIdAsc("ADMIN"));
+        calls.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail("seed17@example.com"));
+
+        calls.put("ProjectRepository.findByDevelopers_Id", () -> projectRepository.findByDevelopers_Id(developer.getId()));
+        calls.put("ProjectRepository.existsByIdAndDevelopers_Id",
+                () -> projectRepository.existsByIdAndDevelopers_Id(project.getId(), developer.getId()));
+        calls.put("ProjectRepository.findByTesters_Id", () -> projectRepository.findByTesters_Id(tester.getId()));
+        calls.put("ProjectRepository.findByIdWithUsers", () -> projectRepository.findByIdWithUsers(project.getId()));
+        calls.put("ProjectRepository.findByCreatedBy", () -> projectRepository.findByCreatedBy(admin));
+
+        calls.put("BugRepository.findByCreatedBy", () -> bugRepository.findByCreatedBy(tester));
+        calls.put("BugRepository.findByAssignedTo", () -> bugRepository.findByAssignedTo(developer));
+        calls.put("BugRepository.findByStatus", () -> bugRepository.findByStatus(BugStatus.OPEN));
+        calls.put("BugRepository.findByProject", () -> bugRepository.findByProject(project));
+        calls.put("BugRepository.findBugsByProjectCreator", () -> bugRepository.findBugsByProjectCreator(admin));
+        calls.put("BugRepository.findByPriorityOrderByIdAsc", () -> bugRepository.findByPriorityOrderByIdAsc(BugPriority.HIGH));
+        calls.put("BugRepository.findByStatusAndProjectAndPriorityOrderByIdAsc",
+                () -> bugRepository.findByStatusAndProjectAndPriorityOrderByIdAsc(BugStatus.OPEN, project, BugPriority.HIGH));
+        calls.put("BugRepository.findByStatusOrderByPriorityRankAscIdAsc",
+                () -> bugRepository.findByStatusOrderByPriorityRankAscIdAsc(BugStatus.IN_PROGRESS));
+        calls.put("BugRepository.findByWasBreachedTrue", () -> bugRepository.findByWasBreachedTrue());
+        calls.put("BugRepository.findSlaClocks", () -> bugRepository.findSlaClocks());
+        calls.put("BugRepository.findTesterImageIdById", () -> bugRepository.findTesterImageIdById(bug.getId()));
+        calls.put("BugRepository.findSummaries(tester)", () -> summaries(BugSpecifications.visibleTo(tester)));
+        calls.put("BugRepository.findSummaries(developer)", () -> summaries(BugSpecifications.visibleTo(developer)));
+        calls.put("BugRepository.findSummaries(admin)", () -> summaries(BugSpecifications.inProjectsOf(admin)));
+        calls.put("BugRepository.findSummaries(breached)",
+                () -> summaries(BugSpecifications.assignedTo(developer).and(BugSpecifications.breached(true))));
+        calls.put("BugRepository.findSummaries(filter)", () -> bugRepository.findSummaries(
+                Specification.where(BugSpecifications.inProject(project.getId()))
+                        .and(BugSpecifications.hasStatus("OPEN"))
+                        .and(BugSpecifications.orderedByPriority()),
+                PageRequest.of(0, 20)));
+
+        calls.put("BugLogRepository.findByBugOrderByTimestampAsc", () -> bugLogRepository.findByBugOrderByTimestampAsc(bug));
+        calls.put("BugLogRepository.findByBugOrderByTimestampDescIdDesc",
+                () -> bugLogRepository.findByBugOrderByTimestampDescIdDesc(bug, ScrollPosition.keyset(), Limit.of(20)));
+
+        calls.put("TaskRepository.findByProjectId", () -> taskRepository.findByProjectId(project.getId()));
+        calls.put("TaskRepository.findByCreatedById", () -> taskRepository.findByCreatedById(developer.getId()));
+        calls.put("TaskRepository.findByAssignedToId", () -> taskRepository.findByAssignedToId(tester.getId()));
+        calls.put("TaskRepository.findSummaries", () -> taskRepository.findSummaries(ScrollPosition.keyset(), Limit.of(20)));
+        calls.put("TaskRepository.findSummariesByCreatedById",
+                () -> taskRepository.findSummariesByCreatedById(developer.getId(), ScrollPosition.keyset(), Limit.of(20)));
+        calls.put("TaskRepository.findSummariesByAssignedToId",
+                () -> taskRepository.findSummariesByAssignedToId(tester.getId(), ScrollPosition.keyset(), Limit.of(20)));
+        calls.put("TaskRepository.findByStatus", () -> taskRepository.findByStatus(TaskStatus.UNASSIGNED));
+        calls.put("TaskRepository.findByProjectIdAndStatus",
+                () -> taskRepository.findByProjectIdAndStatus(project.getId(), TaskStatus.ASSIGNED));
+        calls.put("TaskRepository.findByAssignedToIdAndStatus",
+                () -> taskRepository.findByAssignedToIdAndStatus(tester.getId(), TaskStatus.ASSIGNED));
+        calls.put("TaskRepository.findByCreatedByIdAndStatus",
+                () -> taskRepository.findByCreatedByIdAndStatus(developer.getId(), TaskStatus.ASSIGNED));
+        calls.put("TaskRepository.findDeveloperImageIdById", () -> taskRepository.findDeveloperImageIdById(task.getId()));
+
+        calls.put("TaskLogRepository.findByTaskIdOrderByTimestampDesc",
+                () -> taskLogRepository.findByTaskIdOrderByTimestampDesc(task.getId()));
+        calls.put("TaskLogRepository.findByTaskOrderByTimestampDescIdDesc",
+                () -> taskLogRepository.findByTaskOrderByTimestampDescIdDesc(task, ScrollPosition.keyset(), Limit.of(20)));
+
+        calls.put("AttachmentRepository.findFirstBySha256OrderByIdAsc",
+                () -> attachmentRepository.findFirstBySha256OrderByIdAsc(String.format("%064x", 7)));
+        calls.put("AttachmentRepository.findUnreferencedSince", () -> attachmentRepository.findUnreferencedSince(now));
+
+        calls.put("OutboxMessageRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc",
+                () -> outboxMessageRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                        OutboxMessage.Status.PENDING, now, Limit.of(50)));
+        calls.put("OutboxMessageRepository.findByStatusAndDigestTrueAndRecipientAndCcAndBccOrderByIdAsc",
+                () -> outboxMessageRepository.findByStatusAndDigestTrueAndRecipientAndCcAndBccOrderByIdAsc(
+                        OutboxMessage.Status.PENDING, "user7@example.com", null, null));
+
+        calls.put("RevokedTokenRepository.findActiveIds", () -> revokedTokenRepository.findActiveIds(now));
+        calls.put("RevokedTokenRepository.findActiveIdsRevokedSince",
+                () -> revokedTokenRepository.findActiveIdsRevokedSince(new Date(now.getTime() - 60_000), now));
+        calls.put("RevokedTokenRepository.existsByIdInAndExpiresAtAfter",
+                () -> revokedTokenRepository.existsByIdInAndExpiresAtAfter(List.of("jti-20", "jti-21"), now));
+
+        List<String> scans = new ArrayList<>();
+        calls.forEach((name, call) -> {
+            // One transaction per call, as in a request, so lazy collections load inside it
+            List<QueryInfo> queries = recorder.record(() -> transactionTemplate.executeWithoutResult(status -> call.run()));
+            assertThat(queries).as(name).isNotEmpty();
+            for (QueryInfo query : queries) {
+                String plan = explain(query);
+                if (fullScan(plan)) scans.add(name + ":\n  " + query.getQuery() + "\n  " + plan);
+            }
+        });
+
+        assertThat(scans).as("queries that scan a whole table").isEmpty();
+    }
+
+    private void summaries(Specification<Bug> spec) {
+        bugRepository.findSummaries(spec, ScrollPosition.keyset(), Limit.of(20));
+    }
+
+    private String explain(QueryInfo query) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean postgres = postgres(connection);
+            if (postgres) {
+                // Otherwise the planner may still prefer a scan on tables as small as these
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET enable_seqscan = off");
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + query.getQuery())) {
+                if (!query.getParametersList().isEmpty()) {
+                    for (ParameterSetOperation parameter : query.getParametersList().get(0)) {
+                        parameter.getMethod().invoke(statement, parameter.getArgs());
+                    }
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) plan.append(rows.getString(1)).append('\n');
+                }
+                return plan.toString().strip();
+            } finally {
+                if (postgres) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("RESET enable_seqscan");
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not explain " + query.getQuery(), e);
+        }
+    }
+
+    private static boolean postgres(Connection connection) throws Exception {
+        return connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+    }
+
+    // H2 marks a full scan as "tableScan", PostgreSQL as "Seq Scan" (even with enable_seqscan off
+    // when no index applies)
+    private static boolean fullScan(String plan) {
+        return plan.contains(".tableScan") || plan.contains("Seq Scan");
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.service;
+
+import com.example.demo.model.OutboxMessage;
+import com.example.demo.repository.OutboxMessageRepository;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        // Own database, so no other cached context's dispatcher picks up these messages
+        "spring.datasource.url=jdbc:h2:mem:outbox;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+        "spring.mail.host=127.0.0.1",
+        "spring.mail.port=3025",
+        "spring.mail.username=bugtracker",
+        "spring.mail.password=secret",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "spring.mail.properties.mail.smtp.starttls.required=false",
+        "bugtracker.mail.outbox.poll-interval=PT0.1S",
+        "bugtracker.mail.outbox.initial-backoff=PT1H",
+        "bugtracker.mail.digest.window=PT2S",
+})
+class MailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("bugtracker", "secret"));
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void sendsCommittedMessages() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                mailService.sendMail("dev@example.com", "Bug assigned", "Please take a look.",
+                        new String[] {"admin@example.com"}, null));
+
+        assertThat(greenMail.waitForIncomingEmail(10_000, 1)).isTrue();
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertThat(received.getSubject()).isEqualTo("Bug assigned");
+        assertThat(received.getHeader("Cc", ",")).isEqualTo("admin@example.com");
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(message("Bug assigned").getStatus()).isEqualTo(OutboxMessage.Status.SENT));
+    }
+
+    @Test
+    void coalescesNonUrgentMessagesIntoOneDigest() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            mailService.sendMail("admin@example.com", "Bug Closed in 'P1': first", "...", "LOW");
+            mailService.sendMail("admin@example.com", "Bug Closed in 'P1': second", "...", "MEDIUM");
+            mailService.sendMail("admin@example.com", "Bug Created in 'P1': urgent", "...", "HIGH");
+            mailService.sendMail("admin@example.com", "Bug Closed in 'P1': third", "...", null);
+        });
+
+        // The urgent one right away, the other three together once the window has passed
+        assertThat(greenMail.waitForIncomingEmail(10_000, 2)).isTrue();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received[0].getSubject()).isEqualTo("Bug Created in 'P1': urgent");
+        assertThat(received[1].getSubject()).isEqualTo("3 bug tracker notifications");
+        assertThat(GreenMailUtil.getBody(received[1]))
+                .contains("- Bug Closed in 'P1': first", "- Bug Closed in 'P1': second", "- Bug Closed in 'P1': third");
+    }
+
+    @Test
+    void reusesSmtpConnectionAcrossSends() throws Exception {
+        double before = connectionsOpened();
+        mailService.sendMail("dev@example.com", "First", "...", "HIGH");
+        assertThat(greenMail.waitForIncomingEmail(10_000, 1)).isTrue();
+        mailService.sendMail("dev@example.com", "Second", "...", "HIGH");
+        assertThat(greenMail.waitForIncomingEmail(10_000, 2)).isTrue();
+
+        // One connection for both; a pooled one left over from an earlier test (whose server
+        // has since been restarted) is replaced transparently
+        assertThat(connectionsOpened() - before).isEqualTo(1);
+    }
+
+    @Test
+    void dropsMessagesOfRolledBackTransactions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            mailService.sendMail("dev@example.com", "Rolled back", "Never sent.");
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxMessageRepository.findAll())
+                .noneMatch(message -> "Rolled back".equals(message.getSubject()));
+    }
+
+    @Test
+    void schedulesRetryWhenServerIsDown() {
+        greenMail.stop();
+        mailService.sendMail("dev@example.com", "Server down", "Retried later.");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            OutboxMessage message = message("Server down");
+            assertThat(message.getStatus()).isEqualTo(OutboxMessage.Status.PENDING);
+            assertThat(message.getAttempts()).isEqualTo(1);
+            assertThat(message.getLastError()).isNotBlank();
+            assertThat(message.getNextAttemptAt()).isAfter(message.getCreatedAt());
+        });
+    }
+
+    private double connectionsOpened() {
+        Counter counter = meterRegistry.find("bugtracker.mail.smtp.connections").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private OutboxMessage message(String subject) {
+        return outboxMessageRepository.findAll().stream()
+                .filter(message -> subject.equals(message.getSubject()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
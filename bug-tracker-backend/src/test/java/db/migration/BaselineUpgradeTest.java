@@ -0,0 +1,82 @@
+package db.migration;
+
+import com.example.demo.service.AttachmentFiles;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database holding rows as the application wrote them before migrations (the V1
+ * schema, which production databases are baselined at) and checks what V2 onwards make of them:
+ * images moved to the attachment store, and bug status and priority turned into enum names.
+ */
+class BaselineUpgradeTest {
+
+    private static final byte[] SCREENSHOT = {1, 2, 3, 4};
+    private static final byte[] PHOTO = {5, 6, 7};
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void upgradesRowsWrittenBeforeMigrations() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:upgrade;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        // Hibernate created BLOB columns on H2 (oid on PostgreSQL); V1 declares bytea, so cover both paths
+        jdbc.execute("ALTER TABLE tasks ALTER COLUMN developer_image_blob SET DATA TYPE blob");
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbc.update("INSERT INTO public.user (id, username, email, role) VALUES (1, 'tess', 'tess@example.com', 'TESTER')");
+        jdbc.update("INSERT INTO project (id, name, created_by) VALUES (1, 'Tracker', 1)");
+        jdbc.update("INSERT INTO bug (id, title, status, priority, tester_image_blob, was_breached, created_by_id, project_id) "
+                + "VALUES (1, 'Crash', ' in progress', 'medium', ?, false, 1, 1)", (Object) SCREENSHOT);
+        jdbc.update("INSERT INTO bug (id, title, status, priority, tester_image_blob, original_tester_image_blob, was_breached, "
+                + "created_by_id, project_id) VALUES (2, 'Typo', NULL, 'urgent', ?, ?, false, 1, 1)", PHOTO, SCREENSHOT);
+        jdbc.update("INSERT INTO bug_log (id, bug_id, user_id, status, image_blob) VALUES (1, 2, 1, 'OPEN', ?)", (Object) PHOTO);
+        jdbc.update("INSERT INTO tasks (id, title, status, priority, project_id, created_by, created_at, developer_image_blob) "
+                + "VALUES (1, 'Fix it', 'UNASSIGNED', 'LOW', 1, 1, ?, ?)", now, SCREENSHOT);
+
+        Flyway.configure().dataSource(dataSource)
+                .placeholders(Map.of("upload-dir", uploadDir.toString()))
+                .load().migrate();
+
+        AttachmentFiles files = new AttachmentFiles(uploadDir.toString());
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM attachment", Integer.class)).isEqualTo(2);
+        for (byte[] image : new byte[][] {SCREENSHOT, PHOTO}) {
+            String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+            Path file = files.path(sha256);
+            assertThat(Files.readAllBytes(file)).isEqualTo(image);
+            Integer references = jdbc.queryForObject("SELECT ref_count FROM attachment WHERE sha256 = ?", Integer.class, sha256);
+            assertThat(references).isEqualTo(image == SCREENSHOT ? 3 : 2);
+        }
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM bug WHERE tester_image_id IS NULL", Integer.class)).isZero();
+        assertThat(jdbc.queryForObject(
+                "SELECT original_tester_image_id FROM bug WHERE id = 2", Long.class))
+                .isEqualTo(jdbc.queryForObject("SELECT developer_image_id FROM tasks WHERE id = 1", Long.class))
+                .isEqualTo(jdbc.queryForObject("SELECT tester_image_id FROM bug WHERE id = 1", Long.class));
+        assertThat(jdbc.queryForObject("SELECT image_id FROM bug_log WHERE id = 1", Long.class))
+                .isEqualTo(jdbc.queryForObject("SELECT tester_image_id FROM bug WHERE id = 2", Long.class));
+
+        assertThat(jdbc.queryForMap("SELECT status, priority, priority_rank FROM bug WHERE id = 1"))
+                .containsEntry("STATUS", "IN_PROGRESS").containsEntry("PRIORITY", "MEDIUM").containsEntry("PRIORITY_RANK", 2);
+        assertThat(jdbc.queryForMap("SELECT status, priority, priority_rank FROM bug WHERE id = 2"))
+                .containsEntry("STATUS", "OPEN").containsEntry("PRIORITY", null).containsEntry("PRIORITY_RANK", 4);
+        assertThat(jdbc.queryForObject(
+                "SELECT count(*) FROM information_schema.columns WHERE lower(column_name) LIKE '%image_blob'", Integer.class))
+                .isZero();
+    }
+}
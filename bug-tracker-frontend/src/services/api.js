@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { jwtDecode } from 'jwt-decode';
 
 const API_BASE_URL = process.env.REACT_APP_API_BASE_URL || 'http://localhost:8080/api';
 
@@ -9,16 +10,106 @@ const api = axios.create({
   },
 });
 
+// Access tokens live for minutes. Shortly before one expires it is traded for a new pair at
+// /auth/refresh, and a request rejected with 401 is retried once after a refresh. Concurrent
+// requests wait for the same refresh.
+let refreshing = null;
 
+const expiresSoon = (token) => {
+  try {
+    return jwtDecode(token).exp * 1000 - Date.now() < 30000;
+  } catch (err) {
+    return true;
+  }
+};
+
+// Each refresh token is good for one exchange, and the server ends the session when one is
+// presented twice. Tabs share the tokens in localStorage, so they take turns under a lock and
+// a tab that waited uses the pair another tab has just received.
+const withRefreshLock = (renew) =>
+  navigator.locks ? navigator.locks.request('bugtracker-token-refresh', renew) : renew();
+
+// staleToken is the access token that is about to expire or was rejected
+export const refreshSession = (staleToken) => {
+  if (!refreshing) {
+    refreshing = withRefreshLock(() => {
+      const current = localStorage.getItem('token');
+      if (current && current !== staleToken && !expiresSoon(current)) {
+        return current;
+      }
+      const refreshToken = localStorage.getItem('refreshToken');
+      if (!refreshToken) {
+        return Promise.reject(new Error('No refresh token'));
+      }
+      return axios.post(`${API_BASE_URL}/auth/refresh`, { refreshToken }, { skipRefresh: true })
+        .then((res) => {
+          localStorage.setItem('token', res.data.token);
+          localStorage.setItem('refreshToken', res.data.refreshToken);
+          return res.data.token;
+        });
+    })
+      .catch((err) => {
+        // Session is over; PrivateRoute sends the user back to the login page
+        localStorage.removeItem('token');
+        localStorage.removeItem('refreshToken');
+        throw err;
+      })
+      .finally(() => {
+        refreshing = null;
+      });
+  }
+  return refreshing;
+};
+
+const renewBeforeExpiry = async (config) => {
+  const token = localStorage.getItem('token');
+  const header = config.headers?.Authorization;
+  if (config.skipRefresh || !token || !header?.startsWith('Bearer ') || !expiresSoon(token)) {
+    return config;
+  }
+  try {
+    config.headers.Authorization = `Bearer ${await refreshSession(token)}`;
+  } catch (err) {
+    // Sent as is and rejected by the server, like any other expired token
+  }
+  return config;
+};
+
+// A token that expired or was revoked without the check above noticing (clock skew, a sleeping
+// laptop, a role change) gets one refresh and retry
+const retryAfterRefresh = (instance) => async (error) => {
+  const config = error.config;
+  const header = config?.headers?.Authorization;
+  if (error.response?.status !== 401 || !config || config.skipRefresh || config.retried
+      || !header?.startsWith('Bearer ') || !localStorage.getItem('refreshToken')) {
+    throw error;
+  }
+  let token;
+  try {
+    token = await refreshSession(header.slice('Bearer '.length));
+  } catch (err) {
+    throw error;
+  }
+  config.retried = true;
+  config.headers.Authorization = `Bearer ${token}`;
+  return instance(config);
+};
+
+// The header is set before the expiry check, which only renews requests that carry a token
 api.interceptors.request.use(
   (config) => {
-    const token = localStorage.getItem('token'); 
+    const token = localStorage.getItem('token');
     if (token) {
       config.headers.Authorization = `Bearer ${token}`;
     }
-    return config;
+    return renewBeforeExpiry(config);
   },
   (error) => Promise.reject(error)
 );
+api.interceptors.response.use((response) => response, retryAfterRefresh(api));
+
+// Most components call axios directly with the token from localStorage, so both instances renew
+axios.interceptors.request.use(renewBeforeExpiry);
+axios.interceptors.response.use((response) => response, retryAfterRefresh(axios));
 
 export default api;
@@ -3,8 +3,9 @@ import axios from './api';
 
 export const login = async (username, password) => {
   const res = await axios.post('/auth/login', { username, password });
-  const { token, role, username: name } = res.data;
+  const { token, refreshToken, role, username: name } = res.data;
   localStorage.setItem('token', token);
+  localStorage.setItem('refreshToken', refreshToken);
   localStorage.setItem('role', role);
   localStorage.setItem('username', name);
 
@@ -12,7 +13,13 @@ export const login = async (username, password) => {
 };
 
 export const logout = () => {
+  const refreshToken = localStorage.getItem('refreshToken');
+  if (refreshToken) {
+    // Revokes the session server-side; the local tokens are dropped either way
+    axios.post('/auth/logout', { refreshToken }, { skipRefresh: true }).catch(() => {});
+  }
   localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
 };
 
 